@@ -0,0 +1,274 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nosceon.titanite.annotations;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.annotation.Annotation;
+import java.util.*;
+import java.util.function.Function;
+
+import static java.util.Arrays.asList;
+
+/**
+ * Generates a Controller for every class with annotated methods, registering each method as a plain lambda
+ * with its parameters bound from the request, e.g. for a class UserResource:
+ * <p>
+ * <pre>
+ * public final class UserResourceRoutes extends Controller {
+ *     public UserResourceRoutes(UserResource target) {
+ *         get("/users/:id", request -> target.find(request.pathParams().getLong("id", 0L)));
+ *     }
+ * }
+ * </pre>
+ *
+ * @author Johan Siebens
+ */
+public final class RoutesProcessor extends AbstractProcessor {
+
+    private static final String SUFFIX = "Routes";
+
+    private static final List<Class<? extends Annotation>> METHODS = asList(Get.class, Post.class, Put.class, Patch.class, Delete.class, Head.class, Options.class);
+
+    private static final Map<String, String> GETTERS = new HashMap<>();
+
+    private static final Map<String, String> DEFAULTS = new HashMap<>();
+
+    static {
+        getter("getString", "java.lang.String", null, null);
+        getter("getShort", "java.lang.Short", "short", "(short) 0");
+        getter("getInt", "java.lang.Integer", "int", "0");
+        getter("getLong", "java.lang.Long", "long", "0L");
+        getter("getFloat", "java.lang.Float", "float", "0f");
+        getter("getDouble", "java.lang.Double", "double", "0d");
+        getter("getBoolean", "java.lang.Boolean", "boolean", "false");
+    }
+
+    private static void getter(String getter, String boxed, String primitive, String defaultValue) {
+        GETTERS.put(boxed, getter);
+        if (primitive != null) {
+            GETTERS.put(primitive, getter);
+            DEFAULTS.put(primitive, defaultValue);
+        }
+    }
+
+    private Types types;
+
+    private Elements elements;
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        Set<String> names = new HashSet<>();
+        METHODS.forEach(a -> names.add(a.getCanonicalName()));
+        return names;
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        this.types = processingEnv.getTypeUtils();
+        this.elements = processingEnv.getElementUtils();
+
+        Set<TypeElement> targets = new LinkedHashSet<>();
+        for (Class<? extends Annotation> annotation : METHODS) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                targets.add((TypeElement) element.getEnclosingElement());
+            }
+        }
+
+        for (TypeElement target : targets) {
+            try {
+                generate(target);
+            }
+            catch (IOException e) {
+                error(target, "unable to generate routes for " + target + ": " + e.getMessage());
+            }
+        }
+
+        return true;
+    }
+
+    private void generate(TypeElement target) throws IOException {
+        if (target.getModifiers().contains(Modifier.PRIVATE)) {
+            error(target, "classes with annotated routes cannot be private");
+            return;
+        }
+
+        String packageName = elements.getPackageOf(target).getQualifiedName().toString();
+        String simpleName = generatedName(target);
+
+        List<String> registrations = new ArrayList<>();
+        for (Element element : target.getEnclosedElements()) { // declaration order
+            if (element.getKind() == ElementKind.METHOD) {
+                ExecutableElement method = (ExecutableElement) element;
+                for (String[] route : routes(method)) {
+                    String invocation = invocation(target, method);
+                    if (invocation != null) {
+                        registrations.add(route[0] + "(\"" + escape(route[1]) + "\", request -> " + invocation + ");");
+                    }
+                }
+            }
+        }
+
+        String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, target);
+        try (PrintWriter out = new PrintWriter(file.openWriter())) {
+            if (!packageName.isEmpty()) {
+                out.println("package " + packageName + ";");
+                out.println();
+            }
+            out.println("@javax.annotation.Generated(\"" + RoutesProcessor.class.getName() + "\")");
+            out.println("public final class " + simpleName + " extends org.nosceon.titanite.Controller {");
+            out.println();
+            out.println("    public " + simpleName + "(" + target.getQualifiedName() + " target) {");
+            registrations.forEach(r -> out.println("        " + r));
+            out.println("    }");
+            out.println();
+            out.println("}");
+        }
+    }
+
+    private List<String[]> routes(ExecutableElement method) {
+        List<String[]> routes = new ArrayList<>();
+        add(routes, "get", method.getAnnotation(Get.class), Get::value);
+        add(routes, "post", method.getAnnotation(Post.class), Post::value);
+        add(routes, "put", method.getAnnotation(Put.class), Put::value);
+        add(routes, "patch", method.getAnnotation(Patch.class), Patch::value);
+        add(routes, "delete", method.getAnnotation(Delete.class), Delete::value);
+        add(routes, "head", method.getAnnotation(Head.class), Head::value);
+        add(routes, "options", method.getAnnotation(Options.class), Options::value);
+        return routes;
+    }
+
+    private static <A> void add(List<String[]> routes, String method, A annotation, Function<A, String> pattern) {
+        if (annotation != null) {
+            routes.add(new String[]{method, pattern.apply(annotation)});
+        }
+    }
+
+    private String invocation(TypeElement target, ExecutableElement method) {
+        if (method.getModifiers().contains(Modifier.PRIVATE)) {
+            error(method, "annotated routes cannot be private");
+            return null;
+        }
+
+        TypeMirror response = type("org.nosceon.titanite.Response");
+        TypeMirror future = types.getDeclaredType(elements.getTypeElement("java.util.concurrent.CompletionStage"), response);
+
+        String suffix;
+        if (types.isSameType(method.getReturnType(), response)) {
+            suffix = ".toFuture()";
+        }
+        else if (types.isAssignable(method.getReturnType(), future)) {
+            suffix = "";
+        }
+        else {
+            error(method, "annotated routes must return a Response or a CompletionStage<Response>");
+            return null;
+        }
+
+        List<String> arguments = new ArrayList<>();
+        for (VariableElement parameter : method.getParameters()) {
+            String argument = argument(parameter);
+            if (argument == null) {
+                return null;
+            }
+            arguments.add(argument);
+        }
+
+        String receiver = method.getModifiers().contains(Modifier.STATIC) ? target.getQualifiedName().toString() : "target";
+        return receiver + "." + method.getSimpleName() + "(" + String.join(", ", arguments) + ")" + suffix;
+    }
+
+    private String argument(VariableElement parameter) {
+        TypeMirror type = parameter.asType();
+
+        if (types.isSameType(type, type("org.nosceon.titanite.Request"))) {
+            return "request";
+        }
+
+        String source;
+        String name;
+        if (parameter.getAnnotation(PathParam.class) != null) {
+            source = "pathParams()";
+            name = parameter.getAnnotation(PathParam.class).value();
+        }
+        else if (parameter.getAnnotation(QueryParam.class) != null) {
+            source = "queryParams()";
+            name = parameter.getAnnotation(QueryParam.class).value();
+        }
+        else if (parameter.getAnnotation(HeaderParam.class) != null) {
+            source = "headers()";
+            name = parameter.getAnnotation(HeaderParam.class).value();
+        }
+        else if (parameter.getAnnotation(CookieParam.class) != null) {
+            source = "cookies()";
+            name = parameter.getAnnotation(CookieParam.class).value();
+        }
+        else {
+            error(parameter, "parameters of annotated routes must be a Request or carry a @PathParam, @QueryParam, @HeaderParam or @CookieParam");
+            return null;
+        }
+
+        String typeName = type.getKind() == TypeKind.DECLARED ? ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString() : type.toString();
+        String getter = GETTERS.get(typeName);
+        if (getter == null) {
+            error(parameter, "unsupported parameter type " + type);
+            return null;
+        }
+
+        String defaultValue = DEFAULTS.get(typeName); // primitives cannot be null, missing values fall back to zero or false
+        return "request." + source + "." + getter + "(\"" + escape(name) + "\"" + (defaultValue == null ? "" : ", " + defaultValue) + ")";
+    }
+
+    private TypeMirror type(String name) {
+        return elements.getTypeElement(name).asType();
+    }
+
+    private static String generatedName(TypeElement target) {
+        StringBuilder name = new StringBuilder(target.getSimpleName());
+        Element enclosing = target.getEnclosingElement();
+        while (enclosing instanceof TypeElement) {
+            name.insert(0, enclosing.getSimpleName() + "_");
+            enclosing = enclosing.getEnclosingElement();
+        }
+        return name.append(SUFFIX).toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nosceon.titanite;
+
+import org.junit.Test;
+import org.nosceon.titanite.annotations.*;
+import org.nosceon.titanite.annotations.CookieParam;
+
+import java.util.concurrent.CompletionStage;
+
+import static com.jayway.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.equalTo;
+import static org.nosceon.titanite.Response.ok;
+
+/**
+ * @author Johan Siebens
+ */
+public class AnnotatedRoutesTest extends AbstractE2ETest {
+
+    public static class Users {
+
+        @Get("/users/:id")
+        Response find(@PathParam("id") long id) {
+            return ok().text("user " + id);
+        }
+
+        @Get("/users")
+        CompletionStage<Response> list(@QueryParam("page") Integer page, @QueryParam("active") boolean active, @HeaderParam("X-Tenant") String tenant) {
+            return ok().text(page + " " + active + " " + tenant).toFuture();
+        }
+
+        @Post("/users")
+        @Put("/users/:id")
+        Response save(Request request) {
+            return ok().text(request.method() + " " + request.pathParams().getString("id"));
+        }
+
+        @Delete("/users/:id<int>")
+        static Response remove(@PathParam("id") int id, @CookieParam("token") String token) {
+            return ok().text("removed " + id + " " + token);
+        }
+
+    }
+
+    @Override
+    protected Shutdownable configureAndStartHttpServer(HttpServer server) throws Exception {
+        return
+            server
+                .register(new AnnotatedRoutesTest_UsersRoutes(new Users()))
+                .start();
+    }
+
+    @Test
+    public void test() {
+        given().expect().statusCode(200).body(equalTo("user 42")).when().get(uri("/users/42"));
+
+        given().expect().statusCode(200).body(equalTo("null false null")).when().get(uri("/users"));
+        given().header("X-Tenant", "acme").expect().statusCode(200).body(equalTo("2 true acme")).when().get(uri("/users?page=2&active=true"));
+
+        given().expect().statusCode(200).body(equalTo("POST null")).when().post(uri("/users"));
+        given().expect().statusCode(200).body(equalTo("PUT 7")).when().put(uri("/users/7"));
+
+        given().cookie("token", "abc").expect().statusCode(200).body(equalTo("removed 7 abc")).when().delete(uri("/users/7"));
+        given().expect().statusCode(405).when().delete(uri("/users/abc"));
+    }
+
+}
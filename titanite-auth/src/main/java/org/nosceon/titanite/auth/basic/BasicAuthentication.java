@@ -15,8 +15,8 @@
  */
 package org.nosceon.titanite.auth.basic;
 
-import io.netty.handler.codec.http.HttpHeaders;
 import org.nosceon.titanite.Filter;
+import org.nosceon.titanite.HeaderNames;
 import org.nosceon.titanite.Request;
 import org.nosceon.titanite.Response;
 import org.nosceon.titanite.auth.Auth;
@@ -61,14 +61,15 @@ public final class BasicAuthentication implements Filter {
 
     @Override
     public CompletionStage<Response> apply(Request request, Function<Request, CompletionStage<Response>> handler) {
-        String header = request.headers().getString(HttpHeaders.Names.AUTHORIZATION);
+        CharSequence authorization = request.headers().get(HeaderNames.AUTHORIZATION);
 
         Request req =
             request
                 .withAttribute(Auth.UNAUTHORIZED_ATTRIBUTE_ID, unauthorizedHandler())
                 .withAttribute(Auth.ACCESS_DENIED_ATTRIBUTE_ID, accessDeniedHandler());
 
-        if (header != null) {
+        if (authorization != null) {
+            String header = authorization.toString();
             final int space = header.indexOf(' ');
             if (space > 0) {
                 String method = header.substring(0, space);
@@ -96,7 +97,7 @@ public final class BasicAuthentication implements Filter {
     }
 
     private Function<Request, CompletionStage<Response>> unauthorizedHandler() {
-        return request -> unauthorized().header(HttpHeaders.Names.WWW_AUTHENTICATE, challenge).toFuture();
+        return request -> unauthorized().header(HeaderNames.WWW_AUTHENTICATE, challenge).toFuture();
     }
 
     private Function<Request, CompletionStage<Response>> accessDeniedHandler() {
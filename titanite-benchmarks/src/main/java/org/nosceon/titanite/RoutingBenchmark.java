@@ -0,0 +1,114 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nosceon.titanite;
+
+import io.netty.handler.codec.http.HttpMethod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.nosceon.titanite.Response.ok;
+
+/**
+ * @author Johan Siebens
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoutingBenchmark {
+
+    private static final String PATTERN = "/api/:version/users/:id/orders/*path";
+
+    private static final String PATH = "/api/v1/users/1234/orders/2014/11/42";
+
+    @Param({"10", "100", "600"})
+    public int routes;
+
+    private RegexParameterizedPattern regexPattern;
+
+    private ParameterizedPattern segmentPattern;
+
+    private List<RegexParameterizedPattern> regexRoutes;
+
+    private Router router;
+
+    private String lastPath;
+
+    @Setup
+    public void setUp() {
+        regexPattern = new RegexParameterizedPattern(PATTERN);
+        segmentPattern = new ParameterizedPattern(PATTERN);
+
+        regexRoutes = new ArrayList<>();
+        List<Route> r = new ArrayList<>();
+        for (int i = 0; i < routes; i++) {
+            String pattern = "/api/:version/resource" + i + "/:id";
+            regexRoutes.add(new RegexParameterizedPattern(pattern));
+            r.add(new Route(Method.GET, pattern, null, req -> ok().toFuture()));
+        }
+        router = new Router(r);
+        lastPath = "/api/v1/resource" + (routes - 1) + "/1234";
+    }
+
+    @Benchmark
+    public Map<String, String> regexMatcher() {
+        return regexPattern.matcher(PATH).parameters();
+    }
+
+    @Benchmark
+    public Map<String, String> segmentMatcher() {
+        return segmentPattern.matcher(PATH).parameters();
+    }
+
+    @Benchmark
+    public String segmentMatcherRead() {
+        return segmentPattern.matcher(PATH).parameters().get("id");
+    }
+
+    // the previous router, every pattern is evaluated until the last one matches and is evaluated again
+    @Benchmark
+    public Map<String, String> regexLinearScan() {
+        RegexParameterizedPattern matched = null;
+        for (RegexParameterizedPattern pattern : regexRoutes) {
+            if (pattern.matches(lastPath) && matched == null) {
+                matched = pattern;
+            }
+        }
+        return matched.matcher(lastPath).parameters();
+    }
+
+    @Benchmark
+    public Map<String, String> segmentTree() {
+        return router.find(HttpMethod.GET, lastPath).pathParams();
+    }
+
+}
@@ -16,27 +16,52 @@
 package org.nosceon.titanite;
 
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
-import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.codec.http.*;
+import io.netty.handler.ssl.OpenSslServerContext;
 import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.ssl.SslProvider;
 import io.netty.handler.ssl.util.SelfSignedCertificate;
 import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.util.CharsetUtil;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.Timer;
+import io.netty.util.concurrent.GlobalEventExecutor;
 import org.nosceon.titanite.body.BodyParser;
 
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLParameters;
+import java.io.File;
 import java.net.InetSocketAddress;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.ListIterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletionStage;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
+import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toList;
 import static org.nosceon.titanite.ImmutableSettings.newSettings;
 import static org.nosceon.titanite.Utils.callUnchecked;
@@ -46,10 +71,17 @@ import static org.nosceon.titanite.Utils.callUnchecked;
  */
 public abstract class AbstractHttpServerBuilder<R extends AbstractHttpServerBuilder> {
 
-    private final List<Route> routings = new LinkedList<>();
+    private static final int DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK = 64 * 1024; // as in netty's DefaultChannelConfig
+
+    // in registration order, which decides between routes matching the same request
+    private final List<Registration> registrations = new ArrayList<>();
 
     private BiFunction<Request, Function<Request, CompletionStage<Response>>, CompletionStage<Response>> globalFilter;
 
+    private volatile RouteTable routeTable; // set once started, changes to the routes are applied to it
+
+    private int routeCacheSize;
+
     protected final String id;
 
     protected AbstractHttpServerBuilder(String id) {
@@ -57,18 +89,19 @@ public abstract class AbstractHttpServerBuilder<R extends AbstractHttpServerBuil
     }
 
     public final R setFilter(BiFunction<Request, Function<Request, CompletionStage<Response>>, CompletionStage<Response>> filter) {
-        this.globalFilter = filter;
+        synchronized (registrations) {
+            this.globalFilter = filter;
+            routesChanged();
+        }
         return self();
     }
 
     public final R register(Method method, String pattern, Function<Request, CompletionStage<Response>> handler) {
-        this.routings.add(new Route(method, pattern, null, handler));
-        return self();
+        return add(null, singletonList(new Route(method, pattern, null, handler)));
     }
 
     public final R register(Method method, String pattern, Supplier<BodyParser> bodyParser, Function<Request, CompletionStage<Response>> handler) {
-        this.routings.add(new Route(method, pattern, bodyParser, handler));
-        return self();
+        return add(null, singletonList(new Route(method, pattern, bodyParser, handler)));
     }
 
     public final R register(Method method, String pattern, BiFunction<Request, Function<Request, CompletionStage<Response>>, CompletionStage<Response>> filter, Function<Request, CompletionStage<Response>> handler) {
@@ -79,55 +112,245 @@ public abstract class AbstractHttpServerBuilder<R extends AbstractHttpServerBuil
         return register(method, pattern, bodyParser, new CompositeHandler(filter, handler));
     }
 
+    // raw routes are routed like any other, but skip the filters, body parsing and the request and response objects
+
+    public final R registerRaw(Method method, String pattern, RawHandler handler) {
+        return add(null, singletonList(new Route(method, pattern, handler)));
+    }
+
+    // the requests of a batch are dispatched through the routes of this server, the global filter included
+
+    public final R registerBatch(String pattern) {
+        return registerBatch(pattern, BatchHandler.DEFAULT_MAX_REQUESTS, BatchHandler.DEFAULT_MAX_CONCURRENCY);
+    }
+
+    public final R registerBatch(String pattern, int maxRequests, int maxConcurrency) {
+        return register(Method.POST, pattern, new BatchHandler(() -> routeTable, maxRequests, maxConcurrency));
+    }
+
     public final R register(Controller controller) {
-        this.routings.addAll(controller.routes());
-        return self();
+        return add(controller, controller.routes());
     }
 
     public final R register(BiFunction<Request, Function<Request, CompletionStage<Response>>, CompletionStage<Response>> filter, Controller controller) {
-        this.routings.addAll(controller.routes().stream().map(r -> new Route(r.method(), r.pattern(), null, new CompositeHandler(filter, r.handler()))).collect(toList()));
-        return self();
+        return add(controller, controller.routes().stream().map(r -> new Route(r.method(), r.pattern(), null, new CompositeHandler(filter, r.handler()))).collect(toList()));
     }
 
     public final R register(Class<? extends Controller> c) {
-        return register(callUnchecked(c::newInstance));
+        return add(c, callUnchecked(c::newInstance).routes());
     }
 
     public final R register(BiFunction<Request, Function<Request, CompletionStage<Response>>, CompletionStage<Response>> filter, Class<? extends Controller> c) {
-        return register(filter, callUnchecked(c::newInstance));
+        return add(c, callUnchecked(c::newInstance).routes().stream().map(r -> new Route(r.method(), r.pattern(), null, new CompositeHandler(filter, r.handler()))).collect(toList()));
     }
 
-    protected final void start(NioEventLoopGroup workers, Settings settings) {
-        List<Route> actualRoutes = applyGlobalFilter();
-        actualRoutes.forEach(r -> Titanite.LOG.info(id + " route added: " + Utils.padEnd(r.method().toString(), 7, ' ') + r.pattern()));
+    // the changes below can be made before or after the server is started, a running server swaps in a new route table
 
-        Router router = new Router(actualRoutes);
+    public final R unregister(Method method, String pattern) {
+        synchronized (registrations) {
+            registrations.forEach(r -> r.routes.removeIf(route -> route.method().equals(method) && route.pattern().toString().equals(pattern)));
+            registrations.removeIf(r -> r.routes.isEmpty());
+            routesChanged();
+        }
+        return self();
+    }
+
+    public final R unregister(Controller controller) {
+        return remove(source -> source == controller);
+    }
+
+    // removes the controllers registered by class as well as the instances of it
+    public final R unregister(Class<? extends Controller> c) {
+        return remove(source -> source == c || c.isInstance(source));
+    }
+
+    // the routes of the replacement take the place of the replaced controller, keeping their precedence
+    public final R replace(Controller controller, Controller replacement) {
+        synchronized (registrations) {
+            for (int i = 0; i < registrations.size(); i++) {
+                if (registrations.get(i).source == controller) {
+                    registrations.set(i, new Registration(replacement, replacement.routes()));
+                    routesChanged();
+                    return self();
+                }
+            }
+        }
+        return register(replacement);
+    }
+
+    public final R replace(Method method, String pattern, Function<Request, CompletionStage<Response>> handler) {
+        synchronized (registrations) {
+            boolean replaced = false;
+            for (Registration registration : registrations) {
+                for (ListIterator<Route> routes = registration.routes.listIterator(); routes.hasNext(); ) {
+                    Route route = routes.next();
+                    if (route.method().equals(method) && route.pattern().toString().equals(pattern)) {
+                        routes.set(new Route(method, route.pattern(), route.bodyParser(), handler));
+                        replaced = true;
+                    }
+                }
+            }
+            if (replaced) {
+                routesChanged();
+                return self();
+            }
+        }
+        return register(method, pattern, handler);
+    }
+
+    private R add(Object source, List<Route> routes) {
+        synchronized (registrations) {
+            registrations.add(new Registration(source, routes));
+            routesChanged();
+        }
+        return self();
+    }
+
+    private R remove(Predicate<Object> source) {
+        synchronized (registrations) {
+            if (registrations.removeIf(r -> source.test(r.source))) {
+                routesChanged();
+            }
+        }
+        return self();
+    }
+
+    // called holding the registrations lock, lookups keep using the previous table until the new one is built
+    private void routesChanged() {
+        RouteTable table = this.routeTable;
+        if (table != null) {
+            table.update(newRouter());
+            Titanite.LOG.info(id + " routes changed, " + routeCount() + " route(s) active");
+        }
+    }
+
+    private Router newRouter() {
+        List<Route> actualRoutes = applyGlobalFilter().stream().map(r -> r.raw() != null ? r : r.withHandler(FilterChain.compile(r))).collect(toList());
+        return new Router(actualRoutes, routeCacheSize);
+    }
+
+    private int routeCount() {
+        return registrations.stream().mapToInt(r -> r.routes.size()).sum();
+    }
+
+    protected final Shutdownable start(EventLoopGroup workers, Settings settings) {
+        return start(workers, workers, settings);
+    }
+
+    // the returned Shutdownable drains and closes the connections, the event loop groups are left to the caller
+    protected final Shutdownable start(EventLoopGroup acceptors, EventLoopGroup workers, Settings settings) {
+        RouteTable router;
+        synchronized (registrations) {
+            registrations.forEach(g -> g.routes.forEach(r -> Titanite.LOG.info(id + " route added: " + Utils.padEnd(r.method().toString(), 7, ' ') + r.pattern())));
+
+            this.routeCacheSize = settings.routeCacheSize();
+            router = new RouteTable(newRouter());
+            this.routeTable = router;
+        }
+
+        Titanite.LOG.info(id + " using " + (Transports.isEpoll(workers) ? "epoll" : "nio") + " transport");
+
+        ChannelGroup listeners = new DefaultChannelGroup(id + " listeners", GlobalEventExecutor.INSTANCE);
+        ChannelGroup connections = new DefaultChannelGroup(id + " connections", GlobalEventExecutor.INSTANCE);
+        Timer timer = new HashedWheelTimer(r -> {
+            Thread thread = new Thread(r, "Titanite " + id + " - timeouts");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Limit connectionLimit = new Limit(settings.maxConnections());
+        Limit requestLimit = new Limit(settings.maxInflightRequests());
 
         settings.connectors().forEach(c -> {
             if (c.type().equals(Settings.ConnectorType.HTTP)) {
-                Channel channel = bootstrap(workers, null, settings, c, router);
+                List<Channel> channels = bootstrap(acceptors, workers, null, settings, c, router, connections, timer, connectionLimit, requestLimit);
 
-                Titanite.LOG.info(id + " listening for " + Utils.padEnd(c.type().name(), 6, ' ') + " on " + channel.localAddress());
+                channels.forEach(channel -> Titanite.LOG.info(id + " listening for " + Utils.padEnd(c.type().name(), 6, ' ') + " on " + channel.localAddress()));
+                listeners.addAll(channels);
             }
             else if (c.type().equals(Settings.ConnectorType.HTTPS)) {
                 SslContext sslContext = sslContext(c);
-                Channel channel = bootstrap(workers, sslContext, settings, c, router);
+                List<Channel> channels = bootstrap(acceptors, workers, sslContext, settings, c, router, connections, timer, connectionLimit, requestLimit);
 
-                Titanite.LOG.info(id + " listening for " + Utils.padEnd(c.type().name(), 6, ' ') + " on " + channel.localAddress());
+                channels.forEach(channel -> Titanite.LOG.info(id + " listening for " + Utils.padEnd(c.type().name(), 6, ' ') + " on " + channel.localAddress()));
+                listeners.addAll(channels);
             }
         });
 
+        Runnable release = () -> {
+            RouteCache cache = router.router().cache();
+            if (cache != null) {
+                Titanite.LOG.info(id + " route cache hits: " + cache.hits() + ", misses: " + cache.misses());
+            }
+            timer.stop();
+        };
+
+        return new GracefulShutdown(id, listeners, connections, release, settings.drainTimeout());
     }
 
-    private Channel bootstrap(NioEventLoopGroup workers, SslContext sslContext, Settings settings, Settings.Connector c, Router router) {
-        return
+    private List<Channel> bootstrap(EventLoopGroup acceptors, EventLoopGroup workers, SslContext sslContext, Settings settings, Settings.Connector c, RouteTable router, ChannelGroup connections, Timer timer, Limit connectionLimit, Limit requestLimit) {
+        ServerBootstrap bootstrap =
             new ServerBootstrap()
-                .group(workers)
-                .channel(NioServerSocketChannel.class)
-                .childHandler(new HttpServerChannelInitializer(sslContext, settings, router))
-                .bind(inetAddress(c))
-                .syncUninterruptibly()
-                .channel();
+                .group(acceptors, workers)
+                .channel(Transports.serverChannelType(workers))
+                .handler(new ConnectionLimitHandler(new Limit(c.maxConnections(), connectionLimit)))
+                .childHandler(new HttpServerChannelInitializer(sslContext, settings, c, router, connections, timer, new Limit(c.maxInflightRequests(), requestLimit)));
+
+        configure(bootstrap, c);
+        int listeners = Transports.configure(bootstrap, workers, c);
+
+        List<Channel> channels = new ArrayList<>(listeners);
+        for (int i = 0; i < listeners; i++) {
+            channels.add(bootstrap.bind(inetAddress(c)).syncUninterruptibly().channel());
+        }
+        return channels;
+    }
+
+    private void configure(ServerBootstrap bootstrap, Settings.Connector c) {
+        bootstrap.childOption(ChannelOption.TCP_NODELAY, c.tcpNoDelay());
+
+        if (c.soBacklog() > 0) {
+            bootstrap.option(ChannelOption.SO_BACKLOG, c.soBacklog());
+        }
+        if (c.receiveBufferSize() > 0) {
+            bootstrap.childOption(ChannelOption.SO_RCVBUF, c.receiveBufferSize());
+        }
+        if (c.sendBufferSize() > 0) {
+            bootstrap.childOption(ChannelOption.SO_SNDBUF, c.sendBufferSize());
+        }
+
+        // netty validates each water mark against the current value of the other one, so order matters
+        if (c.writeBufferLowWaterMark() > DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK) {
+            bootstrap.childOption(ChannelOption.WRITE_BUFFER_HIGH_WATER_MARK, c.writeBufferHighWaterMark());
+            bootstrap.childOption(ChannelOption.WRITE_BUFFER_LOW_WATER_MARK, c.writeBufferLowWaterMark());
+        }
+        else {
+            if (c.writeBufferLowWaterMark() > 0) {
+                bootstrap.childOption(ChannelOption.WRITE_BUFFER_LOW_WATER_MARK, c.writeBufferLowWaterMark());
+            }
+            if (c.writeBufferHighWaterMark() > 0) {
+                bootstrap.childOption(ChannelOption.WRITE_BUFFER_HIGH_WATER_MARK, c.writeBufferHighWaterMark());
+            }
+        }
+
+        ByteBufAllocator allocator = allocator(c.allocator());
+        bootstrap.option(ChannelOption.ALLOCATOR, allocator);
+        bootstrap.childOption(ChannelOption.ALLOCATOR, allocator);
+    }
+
+    private static ByteBufAllocator allocator(Settings.Allocator allocator) {
+        switch (allocator) {
+            case POOLED_DIRECT:
+                return Allocators.POOLED_DIRECT;
+            case POOLED_HEAP:
+                return Allocators.POOLED_HEAP;
+            case UNPOOLED_DIRECT:
+                return Allocators.UNPOOLED_DIRECT;
+            case UNPOOLED_HEAP:
+                return Allocators.UNPOOLED_HEAP;
+            default:
+                return ByteBufAllocator.DEFAULT;
+        }
     }
 
     private InetSocketAddress inetAddress(Settings.Connector c) {
@@ -135,8 +358,8 @@ public abstract class AbstractHttpServerBuilder<R extends AbstractHttpServerBuil
     }
 
     @Deprecated
-    protected final void start(NioEventLoopGroup workers, HttpServerConfig config) {
-        this.start(
+    protected final Shutdownable start(EventLoopGroup workers, HttpServerConfig config) {
+        return this.start(
             workers,
             newSettings()
                 .setIoWorkerCount(config.getIoWorkerCount())
@@ -148,11 +371,9 @@ public abstract class AbstractHttpServerBuilder<R extends AbstractHttpServerBuil
     }
 
     private List<Route> applyGlobalFilter() {
+        List<Route> routings = registrations.stream().flatMap(r -> r.routes.stream()).collect(toList());
         if (globalFilter != null) {
-            return routings.stream().map(r -> {
-                Function<Request, CompletionStage<Response>> handler = new CompositeHandler(globalFilter, r.handler());
-                return new Route(r.method(), r.pattern(), r.bodyParser(), handler);
-            }).collect(toList());
+            return routings.stream().map(r -> r.raw() != null ? r : r.withHandler(new CompositeHandler(globalFilter, r.handler()))).collect(toList());
         }
         else {
             return routings;
@@ -166,45 +387,191 @@ public abstract class AbstractHttpServerBuilder<R extends AbstractHttpServerBuil
                 Titanite.LOG.warn(id + " ssl certificate path or key path is missing, using self-signed certificate");
 
                 SelfSignedCertificate ssc = new SelfSignedCertificate();
-                return SslContext.newServerContext(ssc.certificate(), ssc.privateKey());
+                return sslContext(connector, ssc.certificate(), ssc.privateKey(), null);
             }
             else {
-                return SslContext.newServerContext(connector.certificatePath(), connector.keyPath(), connector.keyPassword());
+                return sslContext(connector, connector.certificatePath(), connector.keyPath(), connector.keyPassword());
             }
         });
     }
 
+    private SslContext sslContext(Settings.Connector connector, File certificate, File key, String keyPassword) throws SSLException {
+        SslProvider provider = connector.sslProvider() == Settings.SslProvider.OPENSSL ? SslProvider.OPENSSL : SslProvider.JDK;
+        List<String> ciphers = connector.ciphers().isEmpty() ? null : connector.ciphers();
+
+        SslContext context = SslContext.newServerContext(provider, certificate, key, keyPassword, ciphers, null, connector.sessionCacheSize(), connector.sessionTimeout());
+
+        if (connector.ticketKeys() != null) {
+            if (provider == SslProvider.OPENSSL) {
+                ((OpenSslServerContext) context).setTicketKeys(connector.ticketKeys());
+            }
+            else {
+                Titanite.LOG.warn(id + " ssl session ticket keys are only supported by the OPENSSL provider, ignoring them");
+            }
+        }
+
+        return context;
+    }
+
     protected abstract R self();
 
+    private static final class Registration {
+
+        private final Object source; // the controller or controller class, null for a single route
+
+        private final List<Route> routes;
+
+        private Registration(Object source, List<Route> routes) {
+            this.source = source;
+            this.routes = new ArrayList<>(routes);
+        }
+
+    }
+
+    // shared between connectors, the pooled allocators keep their arenas for the lifetime of the jvm
+    private static final class Allocators {
+
+        private static final ByteBufAllocator POOLED_DIRECT = new PooledByteBufAllocator(true);
+
+        private static final ByteBufAllocator POOLED_HEAP = new PooledByteBufAllocator(false);
+
+        private static final ByteBufAllocator UNPOOLED_DIRECT = new UnpooledByteBufAllocator(true);
+
+        private static final ByteBufAllocator UNPOOLED_HEAP = new UnpooledByteBufAllocator(false);
+
+    }
+
     private static class HttpServerChannelInitializer extends ChannelInitializer<SocketChannel> {
 
         private final SslContext sslCtx;
 
         private final Settings settings;
 
-        private final Router router;
+        private final Settings.Connector connector;
 
-        public HttpServerChannelInitializer(SslContext sslCtx, Settings settings, Router router) {
+        private final RouteTable router;
+
+        private final ChannelGroup connections;
+
+        private final Timer timer;
+
+        private final Limit requestLimit;
+
+        public HttpServerChannelInitializer(SslContext sslCtx, Settings settings, Settings.Connector connector, RouteTable router, ChannelGroup connections, Timer timer, Limit requestLimit) {
             this.sslCtx = sslCtx;
             this.settings = settings;
+            this.connector = connector;
             this.router = router;
+            this.connections = connections;
+            this.timer = timer;
+            this.requestLimit = requestLimit;
         }
 
         @Override
         protected void initChannel(SocketChannel ch) throws Exception {
+            connections.add(ch);
+
             ChannelPipeline pipeline = ch.pipeline();
 
+            ConnectionTimeouts timeouts = ConnectionTimeouts.isEnabled(connector) ? new ConnectionTimeouts(timer, connector) : null;
+
+            if (timeouts != null) {
+                pipeline.addLast(timeouts.rawReads());
+            }
+
             if (sslCtx != null) {
-                pipeline.addLast(sslCtx.newHandler(ch.alloc()));
+                pipeline.addLast(sslHandler(ch));
             }
 
             pipeline
-                .addLast(new HttpRequestDecoder())
+                .addLast(new HttpRequestDecoder(connector.maxInitialLineLength(), connector.maxHeaderSize(), connector.maxChunkSize(), connector.validateHeaders()))
+                .addLast(new BadRequestHandler())
                 .addLast(new HttpContentDecompressor())
-                .addLast(new HttpResponseEncoder())
+                .addLast(new HttpResponseEncoder());
+
+            if (timeouts != null) {
+                pipeline.addLast(timeouts); // sees decoded requests and responses before they are encoded
+            }
+
+            pipeline
                 .addLast(new CustomHttpContentCompressor())
                 .addLast(new ChunkedWriteHandler())
-                .addLast(new HttpServerHandler(sslCtx != null, settings.maxRequestSize(), settings.maxMultipartRequestSize(), router));
+                .addLast(new HttpServerHandler(sslCtx != null, settings.maxRequestSize(), settings.maxMultipartRequestSize(), settings.maxPipelinedRequests(), requestLimit, settings.retryAfter(), settings.recycleRequests(), router));
+        }
+
+        private SslHandler sslHandler(SocketChannel ch) {
+            SSLEngine engine = sslCtx.newEngine(ch.alloc());
+
+            // the netty 4.0 ssl context has no protocol setting, so they are restricted per engine, the openssl engine refuses them
+            if (!connector.protocols().isEmpty() && connector.sslProvider() == Settings.SslProvider.JDK) {
+                engine.setEnabledProtocols(connector.protocols().toArray(new String[connector.protocols().size()]));
+            }
+
+            if (!connector.ciphers().isEmpty() && connector.sslProvider() == Settings.SslProvider.JDK) {
+                // openssl already prefers the server's cipher order
+                SSLParameters parameters = engine.getSSLParameters();
+                parameters.setUseCipherSuitesOrder(true); // the configured order wins over the client's preference
+                engine.setSSLParameters(parameters);
+            }
+
+            // delegated tasks run on the io worker, the netty 4.0 ssl handler blocks on them even when given an executor
+            return new SslHandler(engine);
+        }
+
+    }
+
+    @ChannelHandler.Sharable
+    private static class ConnectionLimitHandler extends ChannelInboundHandlerAdapter {
+
+        private final Limit limit;
+
+        private ConnectionLimitHandler(Limit limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+            Channel child = (Channel) msg;
+            if (limit.tryAcquire()) {
+                child.closeFuture().addListener(future -> limit.release());
+                ctx.fireChannelRead(child);
+            }
+            else {
+                // rejected before the child is registered and its pipeline is initialized
+                Titanite.LOG.debug("connection limit reached, closing " + child);
+                child.unsafe().closeForcibly();
+            }
+        }
+
+    }
+
+    private static class BadRequestHandler extends ChannelInboundHandlerAdapter {
+
+        private static final ByteBuf BAD_REQUEST =
+            Unpooled.unreleasableBuffer(Unpooled.copiedBuffer("HTTP/1.1 400 Bad Request\r\nContent-Length: 0\r\nConnection: close\r\n\r\n", CharsetUtil.US_ASCII));
+
+        private boolean rejected;
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+            if (rejected) {
+                ReferenceCountUtil.release(msg);
+                return;
+            }
+
+            if (msg instanceof HttpObject && !((HttpObject) msg).getDecoderResult().isSuccess()) {
+                // e.g. initial line or headers exceeding the connector limits
+                rejected = true;
+                ReferenceCountUtil.release(msg);
+                ctx.fireUserEventTriggered(new HttpServerHandler.Rejection(ctx, BAD_REQUEST)); // answered after the pending responses
+                return;
+            }
+
+            if (msg instanceof HttpRequest && HttpHeaders.is100ContinueExpected((HttpRequest) msg)) {
+                ctx.fireUserEventTriggered(HttpServerHandler.CONTINUE_EXPECTED);
+            }
+
+            ctx.fireChannelRead(msg);
         }
 
     }
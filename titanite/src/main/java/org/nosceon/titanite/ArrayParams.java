@@ -0,0 +1,139 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nosceon.titanite;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * @author Johan Siebens
+ */
+final class ArrayParams extends AbstractMap<String, String> {
+
+    private final String path;
+
+    private final String[] names;
+
+    private final int[] offsets; // start and end of each value in the path
+
+    private final boolean[] numeric; // values parsed by a numeric route constraint, null if there are none
+
+    private final long[] numbers;
+
+    private String[] values; // created when the first value is read
+
+    ArrayParams(String path, String[] names, int[] offsets) {
+        this(path, names, offsets, null, null);
+    }
+
+    ArrayParams(String path, String[] names, int[] offsets, boolean[] numeric, long[] numbers) {
+        this.path = path;
+        this.names = names;
+        this.offsets = offsets;
+        this.numeric = numeric;
+        this.numbers = numbers;
+    }
+
+    int indexOf(String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    boolean isNumber(int index) {
+        return numeric != null && index >= 0 && numeric[index];
+    }
+
+    long number(int index) {
+        return numbers[index];
+    }
+
+    @Override
+    public String get(Object key) {
+        int index = key instanceof String ? indexOf((String) key) : -1;
+        return index >= 0 ? value(index) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        for (String name : names) {
+            if (name.equals(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return names.length;
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<Entry<String, String>>() {
+
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                return new Iterator<Entry<String, String>>() {
+
+                    private int index;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < names.length;
+                    }
+
+                    @Override
+                    public Entry<String, String> next() {
+                        if (index >= names.length) {
+                            throw new NoSuchElementException();
+                        }
+                        int i = index++;
+                        return new SimpleImmutableEntry<>(names[i], value(i));
+                    }
+
+                };
+            }
+
+            @Override
+            public int size() {
+                return names.length;
+            }
+
+        };
+    }
+
+    // substrings are only created for the values that are read
+    private String value(int i) {
+        if (values == null) {
+            values = new String[names.length];
+        }
+        String value = values[i];
+        if (value == null) {
+            value = path.substring(offsets[2 * i], offsets[2 * i + 1]);
+            values[i] = value;
+        }
+        return value;
+    }
+
+}
@@ -23,15 +23,37 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public final class Attributes {
 
-    private final Map<String, Object> values = new ConcurrentHashMap<>();
+    private volatile Map<String, Object> values; // created on first use, most requests carry no attributes
 
     @SuppressWarnings("unchecked")
     public <T> T get(String key) {
-        return (T) values.get(key);
+        Map<String, Object> values = this.values;
+        return values == null ? null : (T) values.get(key);
     }
 
     void set(String key, Object o) {
-        this.values.compute(key, (k, v) -> o);
+        values().compute(key, (k, v) -> o);
+    }
+
+    void clear() {
+        Map<String, Object> values = this.values;
+        if (values != null) {
+            values.clear();
+        }
+    }
+
+    private Map<String, Object> values() {
+        Map<String, Object> values = this.values;
+        if (values == null) {
+            synchronized (this) {
+                values = this.values;
+                if (values == null) {
+                    values = new ConcurrentHashMap<>();
+                    this.values = values;
+                }
+            }
+        }
+        return values;
     }
 
 }
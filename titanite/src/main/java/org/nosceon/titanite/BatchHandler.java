@@ -0,0 +1,461 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nosceon.titanite;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.FileRegion;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpRequestDecoder;
+import io.netty.handler.codec.http.HttpResponseEncoder;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.handler.stream.ChunkedInput;
+import io.netty.util.ReferenceCountUtil;
+import org.nosceon.titanite.body.BodyParser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static io.netty.handler.codec.http.HttpHeaders.Names.*;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.Collections.singletonMap;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.nosceon.titanite.Exceptions.requestEntityTooLarge;
+import static org.nosceon.titanite.HttpServerHandler.errorResponse;
+
+/**
+ * Dispatches the requests of a multipart/mixed body, one application/http part per request, through the route table
+ * and answers with a multipart/mixed body holding the responses. Responses are in request order, or with stream=true
+ * written as soon as they are available; the Content-ID of a request part is copied to its response part.
+ *
+ * @author Johan Siebens
+ */
+final class BatchHandler implements Function<Request, CompletionStage<Response>> {
+
+    static final int DEFAULT_MAX_REQUESTS = 20;
+
+    static final int DEFAULT_MAX_CONCURRENCY = 4;
+
+    private static final HttpRequest INVALID = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private static final byte[] HEAD_END = {'\r', '\n', '\r', '\n'};
+
+    // answer for a request of which the response could not be encoded
+    private static final byte[] INTERNAL_SERVER_ERROR = ("HTTP/1.1 500 Internal Server Error\r\n" + CONTENT_TYPE + ": text/plain\r\n" + CONTENT_LENGTH + ": 21\r\n\r\nInternal Server Error").getBytes(US_ASCII);
+
+    // headers of the batch request are inherited by the requests not setting them, except those describing the batch itself
+    private static final Set<String> NOT_INHERITED = new HashSet<>(Arrays.asList(
+        CONTENT_TYPE.toLowerCase(), CONTENT_LENGTH.toLowerCase(), CONTENT_ENCODING.toLowerCase(), TRANSFER_ENCODING.toLowerCase(), EXPECT.toLowerCase(), CONNECTION.toLowerCase()
+    ));
+
+    private final Supplier<RouteTable> routes;
+
+    private final int maxRequests;
+
+    private final int maxConcurrency;
+
+    BatchHandler(Supplier<RouteTable> routes, int maxRequests, int maxConcurrency) {
+        this.routes = routes;
+        this.maxRequests = maxRequests;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    @Override
+    public CompletionStage<Response> apply(Request request) {
+        MediaType contentType = request.contentType();
+        if (contentType == null || !"multipart".equals(contentType.getType()) || !"mixed".equals(contentType.getSubtype())) {
+            return Response.unsupportedMediaType().toFuture();
+        }
+
+        String boundary = contentType.getParameter("boundary");
+        List<Part> parts = boundary == null ? null : parts(read(request.body().asStream()), boundary);
+        if (parts == null) {
+            return Response.badRequest().toFuture();
+        }
+        if (parts.size() > maxRequests) {
+            return requestEntityTooLarge().toFuture();
+        }
+
+        String responseBoundary = "batch_" + Long.toHexString(ThreadLocalRandom.current().nextLong());
+        MediaType responseType = new MediaType("multipart", "mixed", singletonMap("boundary", responseBoundary));
+        byte[] end = ("--" + responseBoundary + "--\r\n").getBytes(US_ASCII);
+
+        if (request.queryParams().getBoolean("stream", false)) {
+            return Response.ok().type(responseType).chunks(channel -> {
+                Object lock = new Object();
+                dispatch(request, parts,
+                    (i, response) -> {
+                        synchronized (lock) {
+                            channel.write(part(responseBoundary, parts.get(i), response));
+                        }
+                    },
+                    () -> {
+                        synchronized (lock) {
+                            channel.write(end);
+                            channel.close();
+                        }
+                    });
+            }).toFuture();
+        }
+        else {
+            CompletableFuture<Response> result = new CompletableFuture<>();
+            byte[][] responses = new byte[parts.size()][];
+            dispatch(request, parts,
+                (i, response) -> responses[i] = part(responseBoundary, parts.get(i), response),
+                () -> result.complete(Response.ok().type(responseType).body(out -> {
+                    for (byte[] response : responses) {
+                        out.write(response);
+                    }
+                    out.write(end);
+                })));
+            return result;
+        }
+    }
+
+    // keeps at most maxConcurrency requests of the batch in flight
+    private void dispatch(Request batch, List<Part> parts, BiConsumer<Integer, byte[]> onResponse, Runnable onCompleted) {
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger remaining = new AtomicInteger(parts.size());
+
+        Runnable launch = new Runnable() {
+
+            @Override
+            public void run() {
+                int i = next.getAndIncrement();
+                if (i < parts.size()) {
+                    CompletionStage<byte[]> result;
+                    try {
+                        result = dispatch(batch, parts.get(i));
+                    }
+                    catch (RuntimeException e) {
+                        CompletableFuture<byte[]> failed = new CompletableFuture<>();
+                        failed.completeExceptionally(e);
+                        result = failed;
+                    }
+
+                    result.whenComplete((response, e) -> {
+                        try {
+                            if (e != null) {
+                                Titanite.LOG.error("error processing batch request", e);
+                            }
+                            onResponse.accept(i, e != null ? INTERNAL_SERVER_ERROR : response);
+                        }
+                        finally {
+                            if (remaining.decrementAndGet() == 0) {
+                                onCompleted.run();
+                            }
+                            else {
+                                run();
+                            }
+                        }
+                    });
+                }
+            }
+
+        };
+
+        if (parts.isEmpty()) {
+            onCompleted.run();
+        }
+        for (int i = 0; i < Math.min(maxConcurrency, parts.size()); i++) {
+            launch.run();
+        }
+    }
+
+    private CompletionStage<byte[]> dispatch(Request batch, Part part) {
+        HttpRequest request = decode(part);
+        if (request == null) {
+            return encode(new EmbeddedChannel(new HttpResponseEncoder(), new ChannelInboundHandlerAdapter()), batch, INVALID, Response.badRequest());
+        }
+
+        for (String name : batch.headers().keys()) {
+            if (!NOT_INHERITED.contains(name.toLowerCase()) && !request.headers().contains(name)) {
+                request.headers().add(name, batch.headers().getStrings(name));
+            }
+        }
+
+        QueryStringDecoder qsd = new QueryStringDecoder(request.getUri());
+        RoutingResult routing = routes.get().find(request.getMethod(), qsd.path());
+
+        if (routing.raw() != null) {
+            // raw routes answer on the connection itself, without a request to run them against
+            return encode(new EmbeddedChannel(new HttpResponseEncoder(), new ChannelInboundHandlerAdapter()), batch, request, Response.notImplemented().text("raw routes can not be part of a batch"));
+        }
+
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpResponseEncoder(), new ChannelInboundHandlerAdapter());
+        BodyParser bodyParser = HttpServerHandler.newBodyParser(routing, request, -1, -1); // bounded by the size of the batch
+        bodyParser.initialize(channel.pipeline().lastContext(), request);
+        bodyParser.offer(new DefaultLastHttpContent(Unpooled.wrappedBuffer(part.body)));
+        request.headers().set(HeaderNames.CONTENT_LENGTH, bodyParser.size());
+
+        Request req =
+            new Request(
+                batch.isSecure(),
+                Method.valueOf(request.getMethod().name()),
+                qsd.path(),
+                new HeaderParams(request),
+                new CookieParams(request.headers().get(HeaderNames.COOKIE)),
+                new PathParams(routing.pathParams()),
+                new QueryParams(qsd),
+                bodyParser.body()
+            );
+
+        return completedFuture(req)
+            .thenCompose(r -> routing.handler().apply(r))
+            .handle((resp, ex) -> ex != null ? errorResponse(ex) : resp)
+            .thenCompose(response -> encode(channel, req, request, response))
+            .whenComplete((b, e) -> bodyParser.release());
+    }
+
+    private static CompletionStage<byte[]> encode(EmbeddedChannel channel, Request req, HttpRequest request, Response response) {
+        return response.apply(request, new WebsocketHandler(), true, req, channel.pipeline().lastContext())
+            .handle((v, e) -> {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                try {
+                    if (e != null) {
+                        throw new CompletionException(e);
+                    }
+                    Object msg;
+                    while ((msg = channel.readOutbound()) != null) {
+                        Object m = msg;
+                        try {
+                            Utils.runUnchecked(() -> copy(channel, m, out));
+                        }
+                        finally {
+                            ReferenceCountUtil.release(m);
+                        }
+                    }
+                    return out.toByteArray();
+                }
+                finally {
+                    channel.close();
+                    Object msg;
+                    while ((msg = channel.readOutbound()) != null) {
+                        ReferenceCountUtil.release(msg);
+                    }
+                }
+            });
+    }
+
+    // files are written as a region, or as chunked input on secure connections
+    private static void copy(EmbeddedChannel channel, Object msg, OutputStream out) throws Exception {
+        if (msg instanceof ByteBuf) {
+            ByteBuf buf = (ByteBuf) msg;
+            buf.readBytes(out, buf.readableBytes());
+        }
+        else if (msg instanceof ByteBufHolder) {
+            copy(channel, ((ByteBufHolder) msg).content(), out);
+        }
+        else if (msg instanceof FileRegion) {
+            FileRegion region = (FileRegion) msg;
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = 0;
+            while (position < region.count()) {
+                position += region.transferTo(target, position);
+            }
+        }
+        else if (msg instanceof ChunkedInput) {
+            ChunkedInput<?> input = (ChunkedInput<?>) msg;
+            try {
+                while (!input.isEndOfInput()) {
+                    Object chunk = input.readChunk(channel.pipeline().firstContext());
+                    if (chunk != null) {
+                        try {
+                            copy(channel, chunk, out);
+                        }
+                        finally {
+                            ReferenceCountUtil.release(chunk);
+                        }
+                    }
+                }
+            }
+            finally {
+                input.close();
+            }
+        }
+        else {
+            throw new IllegalStateException("unsupported message [" + msg.getClass().getName() + "]");
+        }
+    }
+
+    private static HttpRequest decode(Part part) {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpRequestDecoder());
+        try {
+            channel.writeInbound(Unpooled.wrappedBuffer(part.head, HEAD_END));
+            Object msg = channel.readInbound();
+            if (msg instanceof HttpRequest && ((HttpRequest) msg).getDecoderResult().isSuccess()) {
+                HttpHeaders.removeTransferEncodingChunked((HttpRequest) msg);
+                return (HttpRequest) msg;
+            }
+            return null;
+        }
+        finally {
+            channel.finish();
+            Object msg;
+            while ((msg = channel.readInbound()) != null) {
+                ReferenceCountUtil.release(msg);
+            }
+        }
+    }
+
+    private static byte[] part(String boundary, Part part, byte[] response) {
+        StringBuilder head = new StringBuilder()
+            .append("--").append(boundary).append("\r\n")
+            .append(CONTENT_TYPE).append(": application/http\r\n");
+        if (part.id != null) {
+            head.append("Content-ID: ").append(part.id).append("\r\n");
+        }
+        head.append("\r\n");
+
+        byte[] h = head.toString().getBytes(US_ASCII);
+        byte[] result = new byte[h.length + response.length + CRLF.length];
+        System.arraycopy(h, 0, result, 0, h.length);
+        System.arraycopy(response, 0, result, h.length, response.length);
+        System.arraycopy(CRLF, 0, result, h.length + response.length, CRLF.length);
+        return result;
+    }
+
+    // splits a multipart body as described in RFC 2046, null when it is malformed
+    static List<Part> parts(byte[] body, String boundary) {
+        byte[] dashBoundary = ("--" + boundary).getBytes(US_ASCII);
+        byte[] delimiter = ("\r\n--" + boundary).getBytes(US_ASCII);
+
+        List<Part> parts = new ArrayList<>();
+        int pos;
+        if (startsWith(body, dashBoundary, 0)) {
+            pos = dashBoundary.length;
+        }
+        else {
+            pos = indexOf(body, delimiter, 0); // skips the preamble
+            if (pos < 0) {
+                return null;
+            }
+            pos += delimiter.length;
+        }
+
+        while (true) {
+            if (pos + 1 < body.length && body[pos] == '-' && body[pos + 1] == '-') {
+                return parts; // close delimiter
+            }
+            int start = indexOf(body, CRLF, pos);
+            int end = start < 0 ? -1 : indexOf(body, delimiter, start);
+            if (end < 0) {
+                return null;
+            }
+            Part part = Part.parse(body, start + CRLF.length, end);
+            if (part == null) {
+                return null;
+            }
+            parts.add(part);
+            pos = end + delimiter.length;
+        }
+    }
+
+    private static boolean startsWith(byte[] bytes, byte[] prefix, int offset) {
+        if (bytes.length < offset + prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static int indexOf(byte[] bytes, byte[] target, int from) {
+        for (int i = from; i <= bytes.length - target.length; i++) {
+            if (startsWith(bytes, target, i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static byte[] read(InputStream in) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Utils.runUnchecked(() -> Utils.copy(in, out));
+        return out.toByteArray();
+    }
+
+    static final class Part {
+
+        private final String id;
+
+        private final byte[] head;
+
+        private final byte[] body;
+
+        private Part(String id, byte[] head, byte[] body) {
+            this.id = id;
+            this.head = head;
+            this.body = body;
+        }
+
+        // a part is its own headers, an empty line and the http request: request line, headers, an empty line and the body
+        static Part parse(byte[] bytes, int start, int end) {
+            int headersEnd = startsWith(bytes, CRLF, start) ? start : indexOf(bytes, HEAD_END, start);
+            if (headersEnd < 0 || headersEnd >= end) {
+                return null;
+            }
+
+            String id = null;
+            for (String header : new String(bytes, start, headersEnd - start, US_ASCII).split("\r\n")) {
+                int colon = header.indexOf(':');
+                if (colon > 0 && header.substring(0, colon).trim().equalsIgnoreCase("Content-ID")) {
+                    id = header.substring(colon + 1).trim();
+                }
+            }
+
+            int requestStart = headersEnd + (headersEnd == start ? CRLF.length : HEAD_END.length);
+            int headEnd = indexOf(bytes, HEAD_END, requestStart);
+            if (headEnd < 0 || headEnd > end) {
+                headEnd = end; // no body
+            }
+            int bodyStart = Math.min(headEnd + HEAD_END.length, end);
+
+            return new Part(id, Arrays.copyOfRange(bytes, requestStart, headEnd), Arrays.copyOfRange(bytes, bodyStart, end));
+        }
+
+    }
+
+}
@@ -15,6 +15,8 @@
  */
 package org.nosceon.titanite;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletionStage;
 import java.util.function.BiFunction;
 import java.util.function.Function;
@@ -42,6 +44,8 @@ public final class CompositeFilter implements Filter {
         return new CompositeFilter(first, second, next);
     }
 
+    private final List<BiFunction<Request, Function<Request, CompletionStage<Response>>, CompletionStage<Response>>> filters = new ArrayList<>();
+
     private final BiFunction<Request, Function<Request, CompletionStage<Response>>, CompletionStage<Response>> composition;
 
     @SafeVarargs
@@ -54,10 +58,13 @@ public final class CompositeFilter implements Filter {
         checkNotNull(second, "second filter is required");
 
         BiFunction<Request, Function<Request, CompletionStage<Response>>, CompletionStage<Response>> c = compose(first, second);
+        filters.add(first);
+        filters.add(second);
 
         if (next != null) {
             for (BiFunction<Request, Function<Request, CompletionStage<Response>>, CompletionStage<Response>> n : next) {
                 c = compose(c, n);
+                filters.add(n);
             }
         }
 
@@ -69,6 +76,10 @@ public final class CompositeFilter implements Filter {
         return this.composition.apply(request, handler);
     }
 
+    List<BiFunction<Request, Function<Request, CompletionStage<Response>>, CompletionStage<Response>>> filters() {
+        return filters;
+    }
+
     private static BiFunction<Request, Function<Request, CompletionStage<Response>>, CompletionStage<Response>> compose(
         BiFunction<Request, Function<Request, CompletionStage<Response>>, CompletionStage<Response>> first,
         BiFunction<Request, Function<Request, CompletionStage<Response>>, CompletionStage<Response>> second) {
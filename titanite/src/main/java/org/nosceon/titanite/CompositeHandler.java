@@ -45,6 +45,10 @@ public final class CompositeHandler implements Function<Request, CompletionStage
 
     private final Function<Request, CompletionStage<Response>> composition;
 
+    private final BiFunction<Request, Function<Request, CompletionStage<Response>>, CompletionStage<Response>> filter; // set when composed of a filter and a handler
+
+    private final Function<Request, CompletionStage<Response>> handler;
+
     @SafeVarargs
     public CompositeHandler(
         Function<Request, CompletionStage<Response>> first,
@@ -54,6 +58,9 @@ public final class CompositeHandler implements Function<Request, CompletionStage
         checkNotNull(first, "first handler is required");
         checkNotNull(second, "second handler is required");
 
+        this.filter = null;
+        this.handler = null;
+
         Function<Request, CompletionStage<Response>> c = compose(first, second);
 
         if (next != null) {
@@ -72,9 +79,19 @@ public final class CompositeHandler implements Function<Request, CompletionStage
         checkNotNull(filter, "filter is required");
         checkNotNull(handler, "handler is required");
 
+        this.filter = filter;
+        this.handler = handler;
         this.composition = request -> filter.apply(request, handler);
     }
 
+    BiFunction<Request, Function<Request, CompletionStage<Response>>, CompletionStage<Response>> filter() {
+        return filter;
+    }
+
+    Function<Request, CompletionStage<Response>> handler() {
+        return handler;
+    }
+
     @Override
     public CompletionStage<Response> apply(Request request) {
         return composition.apply(request);
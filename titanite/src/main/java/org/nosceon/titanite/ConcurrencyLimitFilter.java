@@ -0,0 +1,242 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nosceon.titanite;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.nosceon.titanite.Exceptions.serviceUnavailable;
+
+/**
+ * @author Johan Siebens
+ */
+public final class ConcurrencyLimitFilter implements Filter {
+
+    // gradient limit, as in netflix' concurrency-limits: the limit shrinks when the latency of the last request
+    // rises above the long term average latency, and grows by a small queue allowance otherwise
+
+    private static final double SMOOTHING = 0.2;
+
+    private static final double TOLERANCE = 1.5;
+
+    private static final int LONG_WINDOW = 600; // samples
+
+    private int minLimit = 1;
+
+    private int maxLimit = 1000;
+
+    private int maxQueueSize = 0;
+
+    private Supplier<Response> rejection = () -> serviceUnavailable(1);
+
+    private final AtomicLong limit = new AtomicLong(Double.doubleToLongBits(20));
+
+    private final AtomicLong longRtt = new AtomicLong(Double.doubleToLongBits(0));
+
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final AtomicInteger draining = new AtomicInteger(); // drain requests, a single thread runs the queued tasks
+
+    public ConcurrencyLimitFilter setInitialLimit(int initialLimit) {
+        this.limit.set(Double.doubleToLongBits(initialLimit));
+        return this;
+    }
+
+    public ConcurrencyLimitFilter setMinLimit(int minLimit) {
+        this.minLimit = minLimit;
+        return this;
+    }
+
+    public ConcurrencyLimitFilter setMaxLimit(int maxLimit) {
+        this.maxLimit = maxLimit;
+        return this;
+    }
+
+    public ConcurrencyLimitFilter setMaxQueueSize(int maxQueueSize) {
+        this.maxQueueSize = maxQueueSize;
+        return this;
+    }
+
+    public ConcurrencyLimitFilter setRejection(Supplier<Response> rejection) {
+        this.rejection = rejection;
+        return this;
+    }
+
+    public int limit() {
+        return (int) Double.longBitsToDouble(limit.get());
+    }
+
+    public int inflight() {
+        return inflight.get();
+    }
+
+    public int queued() {
+        return queued.get();
+    }
+
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    @Override
+    public CompletionStage<Response> apply(Request request, Function<Request, CompletionStage<Response>> function) {
+        if (tryAcquire()) {
+            return execute(request, function);
+        }
+
+        if (queued.incrementAndGet() <= maxQueueSize) {
+            CompletableFuture<Response> result = new CompletableFuture<>();
+            waiting.add(() -> {
+                try {
+                    execute(request, function).whenComplete((r, e) -> {
+                        if (e != null) {
+                            result.completeExceptionally(e);
+                        }
+                        else {
+                            result.complete(r);
+                        }
+                    });
+                }
+                catch (RuntimeException e) {
+                    result.completeExceptionally(e); // run by the draining thread, which continues with the next task
+                }
+            });
+            drain(); // a permit may have been released before the task was queued
+            return result;
+        }
+
+        queued.decrementAndGet();
+        rejected.increment();
+        return rejection.get().toFuture();
+    }
+
+    private CompletionStage<Response> execute(Request request, Function<Request, CompletionStage<Response>> function) {
+        long start = System.nanoTime();
+        int concurrency = inflight.get();
+
+        CompletionStage<Response> response;
+        try {
+            response = function.apply(request);
+        }
+        catch (RuntimeException e) {
+            release();
+            throw e;
+        }
+
+        return response.whenComplete((r, e) -> {
+            if (e == null) {
+                update(System.nanoTime() - start, concurrency);
+            }
+            release();
+        });
+    }
+
+    private boolean tryAcquire() {
+        int current;
+        do {
+            current = inflight.get();
+            if (current >= limit()) {
+                return false;
+            }
+        }
+        while (!inflight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private void release() {
+        inflight.decrementAndGet();
+        drain();
+    }
+
+    // a queued task completing synchronously releases its permit while draining, it is picked up by the loop instead of recursing
+    private void drain() {
+        if (draining.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            while (!waiting.isEmpty() && tryAcquire()) {
+                Runnable next = waiting.poll();
+                if (next == null) {
+                    inflight.decrementAndGet();
+                }
+                else {
+                    queued.decrementAndGet();
+                    next.run();
+                }
+            }
+            missed = draining.addAndGet(-missed);
+        }
+        while (missed != 0);
+    }
+
+    private void update(long rtt, int concurrency) {
+        double longTerm = updateLongRtt(rtt);
+
+        long current;
+        long next;
+        do {
+            current = limit.get();
+            double estimated = Double.longBitsToDouble(current);
+
+            if (concurrency < estimated / 2) {
+                return; // not using the limit, no evidence to change it
+            }
+
+            double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longTerm / rtt));
+            double newLimit = estimated * gradient + Math.sqrt(estimated);
+            newLimit = estimated * (1 - SMOOTHING) + newLimit * SMOOTHING;
+            newLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+
+            next = Double.doubleToLongBits(newLimit);
+        }
+        while (!limit.compareAndSet(current, next));
+    }
+
+    private double updateLongRtt(long rtt) {
+        long current;
+        double next;
+        do {
+            current = longRtt.get();
+            double average = Double.longBitsToDouble(current);
+            if (average == 0) {
+                next = rtt;
+            }
+            else {
+                next = average + (rtt - average) / LONG_WINDOW;
+                if (next / rtt > 2) {
+                    next = next * 0.95; // latency dropped, let the long term average catch up
+                }
+            }
+        }
+        while (!longRtt.compareAndSet(current, Double.doubleToLongBits(next)));
+        return next;
+    }
+
+}
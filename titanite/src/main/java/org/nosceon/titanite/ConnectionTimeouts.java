@@ -0,0 +1,258 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nosceon.titanite;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.*;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * @author Johan Siebens
+ */
+final class ConnectionTimeouts extends ChannelDuplexHandler {
+
+    private final Timer timer;
+
+    private final long idleTimeout;
+
+    private final long headerReadTimeout;
+
+    private final long bodyReadTimeout;
+
+    private final long writeTimeout;
+
+    private final long streamIdleTimeout;
+
+    private ChannelHandlerContext ctx;
+
+    private Timeout check;
+
+    // connection state, only accessed on the event loop
+
+    private long lastActivity;
+
+    private long lastRead;
+
+    private boolean readingHeaders;
+
+    private long headersStarted;
+
+    private boolean readingBody;
+
+    private int inflight;
+
+    private boolean streaming;
+
+    private boolean upgraded;
+
+    private int pendingWrites;
+
+    private long lastWriteProgress;
+
+    static boolean isEnabled(Settings.Connector connector) {
+        return timeouts(connector).anyMatch(t -> t > 0);
+    }
+
+    ConnectionTimeouts(Timer timer, Settings.Connector connector) {
+        this.timer = timer;
+        this.idleTimeout = MILLISECONDS.toNanos(connector.idleTimeout());
+        this.headerReadTimeout = MILLISECONDS.toNanos(connector.headerReadTimeout());
+        this.bodyReadTimeout = MILLISECONDS.toNanos(connector.bodyReadTimeout());
+        this.writeTimeout = MILLISECONDS.toNanos(connector.writeTimeout());
+        this.streamIdleTimeout = MILLISECONDS.toNanos(connector.streamIdleTimeout());
+    }
+
+    private static LongStream timeouts(Settings.Connector connector) {
+        return LongStream.of(connector.idleTimeout(), connector.headerReadTimeout(), connector.bodyReadTimeout(), connector.writeTimeout(), connector.streamIdleTimeout());
+    }
+
+    // placed in front of the pipeline, so header reads are noticed before the decoder has a complete request
+    ChannelInboundHandlerAdapter rawReads() {
+        return new ChannelInboundHandlerAdapter() {
+
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+                long now = System.nanoTime();
+                lastActivity = now;
+                lastRead = now;
+                if (!readingHeaders && !readingBody && !upgraded) {
+                    readingHeaders = true;
+                    headersStarted = now;
+                }
+                ctx.fireChannelRead(msg);
+            }
+
+        };
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        this.ctx = ctx;
+        this.lastActivity = System.nanoTime();
+        schedule(nextCheck(lastActivity));
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        cancel();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        cancel();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof HttpRequest) {
+            readingHeaders = false;
+            readingBody = true;
+            inflight++; // counted from the head, a streaming request may be answered before its body is received
+        }
+        if (msg instanceof LastHttpContent) {
+            readingBody = false;
+        }
+        if (msg instanceof WebSocketFrame) {
+            upgraded = true;
+        }
+        super.channelRead(ctx, msg);
+    }
+
+    // requested when auto read is switched back on, time spent with reads paused does not count as a slow body
+    @Override
+    public void read(ChannelHandlerContext ctx) throws Exception {
+        if (readingBody) {
+            lastRead = System.nanoTime();
+        }
+        super.read(ctx);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (msg instanceof HttpResponse) {
+            HttpResponseStatus status = ((HttpResponse) msg).getStatus();
+            if (status.equals(HttpResponseStatus.SWITCHING_PROTOCOLS)) {
+                upgraded = true;
+            }
+            else if (status.code() >= 200) {
+                streaming = !(msg instanceof LastHttpContent);
+            }
+        }
+        if (msg instanceof LastHttpContent && !(msg instanceof HttpResponse && ((HttpResponse) msg).getStatus().code() < 200)) {
+            streaming = false;
+            inflight = Math.max(0, inflight - 1);
+            lastActivity = System.nanoTime(); // an idle keep-alive connection starts now
+        }
+
+        if (promise != ctx.voidPromise()) {
+            if (pendingWrites++ == 0) {
+                lastWriteProgress = System.nanoTime();
+            }
+            promise.addListener(f -> {
+                pendingWrites--;
+                lastWriteProgress = System.nanoTime();
+                lastActivity = lastWriteProgress;
+            });
+        }
+        super.write(ctx, msg, promise);
+    }
+
+    private void schedule(long delay) {
+        check = timer.newTimeout(t -> ctx.executor().execute(this::check), delay, TimeUnit.NANOSECONDS);
+    }
+
+    private void cancel() {
+        if (check != null) {
+            check.cancel();
+            check = null;
+        }
+    }
+
+    private void check() {
+        if (check == null || !ctx.channel().isOpen()) {
+            return;
+        }
+
+        long now = System.nanoTime();
+
+        if (readingBody && !ctx.channel().config().isAutoRead()) {
+            lastRead = now; // reads are paused until the handler consumed the chunks received so far
+        }
+
+        if (expired(writeTimeout, pendingWrites > 0, lastWriteProgress, now)) {
+            close("write");
+        }
+        else if (upgraded || streaming) {
+            if (expired(streamIdleTimeout, true, lastActivity, now)) {
+                close("stream idle");
+            }
+        }
+        else if (expired(bodyReadTimeout, readingBody, lastRead, now)) {
+            close("body read");
+        }
+        else if (expired(headerReadTimeout, readingHeaders, headersStarted, now)) {
+            close("header read");
+        }
+        else if (expired(idleTimeout, !readingHeaders && !readingBody && inflight == 0, lastActivity, now)) {
+            close("idle");
+        }
+
+        if (check != null) {
+            schedule(nextCheck(now));
+        }
+    }
+
+    // a single check per connection is kept on the timer and re-armed at the nearest deadline, so a timeout expires late by at most a timer tick
+    // state changes only record timestamps, a timeout that does not apply yet may start any moment and counts in full
+    private long nextCheck(long now) {
+        boolean stream = upgraded || streaming;
+        long next = remaining(writeTimeout, pendingWrites > 0, lastWriteProgress, now);
+        next = Math.min(next, remaining(streamIdleTimeout, stream, lastActivity, now));
+        next = Math.min(next, remaining(bodyReadTimeout, !stream && readingBody, lastRead, now));
+        next = Math.min(next, remaining(headerReadTimeout, !stream && readingHeaders, headersStarted, now));
+        next = Math.min(next, remaining(idleTimeout, !stream && !readingHeaders && !readingBody && inflight == 0, lastActivity, now));
+        return next;
+    }
+
+    private static boolean expired(long timeout, boolean applicable, long since, long now) {
+        return timeout > 0 && applicable && now - since >= timeout;
+    }
+
+    private static long remaining(long timeout, boolean applicable, long since, long now) {
+        if (timeout <= 0) {
+            return Long.MAX_VALUE;
+        }
+        return applicable ? Math.max(0, since + timeout - now) : timeout;
+    }
+
+    private void close(String timeout) {
+        Titanite.LOG.debug(timeout + " timeout expired, closing connection " + ctx.channel());
+        cancel();
+        ctx.channel().close();
+    }
+
+}
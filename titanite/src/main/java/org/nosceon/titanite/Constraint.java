@@ -0,0 +1,159 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nosceon.titanite;
+
+import java.util.regex.Pattern;
+
+/**
+ * @author Johan Siebens
+ */
+abstract class Constraint {
+
+    private final String spec;
+
+    private Constraint(String spec) {
+        this.spec = spec;
+    }
+
+    // int, long and uuid are built in, anything else is a regular expression for a single segment
+    static Constraint of(String spec) {
+        switch (spec) {
+            case "int":
+                return new Numeric(spec, Integer.MIN_VALUE, Integer.MAX_VALUE);
+            case "long":
+                return new Numeric(spec, Long.MIN_VALUE, Long.MAX_VALUE);
+            case "uuid":
+                return new Uuid(spec);
+            default:
+                return new Regex(spec);
+        }
+    }
+
+    // tests the path region, numeric constraints store the parsed value in numbers[index]
+    abstract boolean test(String path, int start, int end, long[] numbers, int index);
+
+    boolean isNumeric() {
+        return false;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Constraint && spec.equals(((Constraint) o).spec);
+    }
+
+    @Override
+    public int hashCode() {
+        return spec.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return spec;
+    }
+
+    private static final class Numeric extends Constraint {
+
+        private final long min;
+
+        private final long max;
+
+        private Numeric(String spec, long min, long max) {
+            super(spec);
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        boolean test(String path, int start, int end, long[] numbers, int index) {
+            boolean negative = start < end && path.charAt(start) == '-';
+            int i = negative ? start + 1 : start;
+            if (i == end) {
+                return false;
+            }
+
+            // accumulated negatively as in Long.parseLong, so the minimum value does not overflow
+            long limit = negative ? min : -max;
+            long multmin = limit / 10;
+            long result = 0;
+            for (; i < end; i++) {
+                int digit = path.charAt(i) - '0';
+                if (digit < 0 || digit > 9 || result < multmin) {
+                    return false;
+                }
+                result *= 10;
+                if (result < limit + digit) {
+                    return false;
+                }
+                result -= digit;
+            }
+
+            if (numbers != null) {
+                numbers[index] = negative ? result : -result;
+            }
+            return true;
+        }
+
+        @Override
+        boolean isNumeric() {
+            return true;
+        }
+
+    }
+
+    private static final class Uuid extends Constraint {
+
+        private Uuid(String spec) {
+            super(spec);
+        }
+
+        @Override
+        boolean test(String path, int start, int end, long[] numbers, int index) {
+            if (end - start != 36) {
+                return false;
+            }
+            for (int i = 0; i < 36; i++) {
+                char c = path.charAt(start + i);
+                if (i == 8 || i == 13 || i == 18 || i == 23) {
+                    if (c != '-') {
+                        return false;
+                    }
+                }
+                else if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F'))) { // ascii only, unlike Character.digit
+                    return false;
+                }
+            }
+            return true;
+        }
+
+    }
+
+    private static final class Regex extends Constraint {
+
+        private final Pattern pattern;
+
+        private Regex(String spec) {
+            super(spec);
+            this.pattern = Pattern.compile(spec);
+        }
+
+        @Override
+        boolean test(String path, int start, int end, long[] numbers, int index) {
+            return pattern.matcher(path).region(start, end).matches();
+        }
+
+    }
+
+}
@@ -15,6 +15,8 @@
  */
 package org.nosceon.titanite;
 
+import io.netty.handler.codec.http.Cookie;
+import io.netty.handler.codec.http.CookieDecoder;
 import org.nosceon.titanite.exception.InvalidCookieParamException;
 
 import java.util.Collections;
@@ -23,34 +25,57 @@ import java.util.Optional;
 import java.util.Set;
 
 import static java.util.Collections.unmodifiableSet;
+import static java.util.stream.Collectors.toMap;
 
 /**
  * @author Johan Siebens
  */
 public final class CookieParams extends SingleParams {
 
-    private final Map<String, CookieParam> cookies;
+    private String header;
+
+    private volatile Map<String, CookieParam> cookies; // decoded on first access
 
     CookieParams() {
         this(Collections.emptyMap());
     }
 
     CookieParams(Map<String, CookieParam> cookies) {
+        this.header = null;
         this.cookies = cookies;
     }
 
+    CookieParams(String header) {
+        this.header = header;
+        this.cookies = header == null ? Collections.emptyMap() : null;
+    }
+
+    void reset(String header) {
+        this.header = header;
+        this.cookies = header == null ? Collections.emptyMap() : null;
+    }
+
     public CookieParam getCookie(String name) {
-        return cookies.get(name);
+        return cookies().get(name);
     }
 
     @Override
     public String getString(String name) {
-        return Optional.ofNullable(cookies.get(name)).map(CookieParam::value).orElse(null);
+        return Optional.ofNullable(cookies().get(name)).map(CookieParam::value).orElse(null);
     }
 
     @Override
     public Set<String> keys() {
-        return unmodifiableSet(cookies.keySet());
+        return unmodifiableSet(cookies().keySet());
+    }
+
+    private Map<String, CookieParam> cookies() {
+        Map<String, CookieParam> result = cookies;
+        if (result == null) {
+            result = CookieDecoder.decode(header).stream().collect(toMap(Cookie::getName, CookieParam::new));
+            cookies = result;
+        }
+        return result;
     }
 
     @Override
@@ -30,4 +30,8 @@ class Exceptions {
         return new Response(HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE).text("Request Entity Too Large");
     }
 
+    static Response serviceUnavailable(int retryAfter) {
+        return new Response(HttpResponseStatus.SERVICE_UNAVAILABLE).header(HeaderNames.RETRY_AFTER, retryAfter).text("Service Unavailable");
+    }
+
 }
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nosceon.titanite;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * @author Johan Siebens
+ */
+final class FilterChain implements Function<Request, CompletionStage<Response>> {
+
+    private final BiFunction<Request, Function<Request, CompletionStage<Response>>, CompletionStage<Response>>[] filters;
+
+    // a guard entry continues with the next entry when its patterns match the path, at skip[i] otherwise
+    private final PatternMatchingFilter[] guards;
+
+    private final int[] skip;
+
+    private final Function<Request, CompletionStage<Response>> handler;
+
+    private final Link[] links; // links[i] continues the chain at entry i, created once and shared by all requests
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private FilterChain(List<Object> entries, List<Integer> skips, Function<Request, CompletionStage<Response>> handler) {
+        int size = entries.size();
+        this.filters = new BiFunction[size];
+        this.guards = new PatternMatchingFilter[size];
+        this.skip = new int[size];
+        this.handler = handler;
+        this.links = new Link[size + 1];
+
+        for (int i = 0; i < size; i++) {
+            Object entry = entries.get(i);
+            if (entry instanceof Guard) {
+                guards[i] = ((Guard) entry).filter;
+                skip[i] = skips.get(i);
+            }
+            else {
+                filters[i] = (BiFunction<Request, Function<Request, CompletionStage<Response>>, CompletionStage<Response>>) entry;
+            }
+        }
+        for (int i = 0; i <= size; i++) {
+            links[i] = new Link(i);
+        }
+    }
+
+    // flattens the filters composed around the handler of a route into a single chain
+    static Function<Request, CompletionStage<Response>> compile(Route route) {
+        List<Object> entries = new ArrayList<>();
+        List<Integer> skips = new ArrayList<>();
+        String staticPath = route.pattern().staticPath();
+
+        Function<Request, CompletionStage<Response>> handler = route.handler();
+        while (handler instanceof CompositeHandler && ((CompositeHandler) handler).filter() != null) {
+            flatten(((CompositeHandler) handler).filter(), staticPath, entries, skips);
+            handler = ((CompositeHandler) handler).handler();
+        }
+
+        return entries.isEmpty() ? handler : new FilterChain(entries, skips, handler);
+    }
+
+    private static void flatten(BiFunction<Request, Function<Request, CompletionStage<Response>>, CompletionStage<Response>> filter, String staticPath, List<Object> entries, List<Integer> skips) {
+        if (filter instanceof CompositeFilter) {
+            ((CompositeFilter) filter).filters().forEach(f -> flatten(f, staticPath, entries, skips));
+        }
+        else if (filter instanceof PatternMatchingFilter) {
+            PatternMatchingFilter pmf = (PatternMatchingFilter) filter;
+            if (pmf.matchesAll()) {
+                flatten(pmf.filter(), staticPath, entries, skips);
+            }
+            else if (staticPath != null) {
+                // the route matches a single path, so the patterns are evaluated once here
+                if (pmf.matches(staticPath)) {
+                    flatten(pmf.filter(), staticPath, entries, skips);
+                }
+            }
+            else {
+                int guard = entries.size();
+                entries.add(new Guard(pmf));
+                skips.add(-1);
+                flatten(pmf.filter(), null, entries, skips);
+                skips.set(guard, entries.size());
+            }
+        }
+        else {
+            entries.add(filter);
+            skips.add(-1);
+        }
+    }
+
+    int size() {
+        return filters.length;
+    }
+
+    @Override
+    public CompletionStage<Response> apply(Request request) {
+        return links[0].apply(request);
+    }
+
+    private final class Link implements Function<Request, CompletionStage<Response>> {
+
+        private final int index;
+
+        private Link(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public CompletionStage<Response> apply(Request request) {
+            if (index == filters.length) {
+                return handler.apply(request);
+            }
+            if (guards[index] != null) {
+                return links[guards[index].matches(request.path()) ? index + 1 : skip[index]].apply(request);
+            }
+            return filters[index].apply(request, links[index + 1]);
+        }
+
+    }
+
+    private static final class Guard {
+
+        private final PatternMatchingFilter filter;
+
+        private Guard(PatternMatchingFilter filter) {
+            this.filter = filter;
+        }
+
+    }
+
+}
@@ -52,6 +52,10 @@ public final class Filters {
         return new ExceptionsFilter();
     }
 
+    public static ConcurrencyLimitFilter concurrencyLimit() {
+        return new ConcurrencyLimitFilter();
+    }
+
     private Filters() {
     }
 
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nosceon.titanite;
+
+import io.netty.channel.Channel;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @author Johan Siebens
+ */
+final class GracefulShutdown implements Shutdownable {
+
+    static final Object DRAIN = new Object(); // user event asking a connection to finish its in-flight requests and close
+
+    private final String id;
+
+    private final ChannelGroup listeners;
+
+    private final ChannelGroup connections;
+
+    private final Runnable release; // releases the resources shared by the connections, e.g. the timeout wheel
+
+    private final long drainTimeout;
+
+    private final AtomicBoolean stopping = new AtomicBoolean();
+
+    private final CompletableFuture<Void> stopped = new CompletableFuture<>();
+
+    GracefulShutdown(String id, ChannelGroup listeners, ChannelGroup connections, Runnable release, long drainTimeout) {
+        this.id = id;
+        this.listeners = listeners;
+        this.connections = connections;
+        this.release = release;
+        this.drainTimeout = drainTimeout;
+    }
+
+    @Override
+    public CompletionStage<Void> stop() {
+        if (stopping.compareAndSet(false, true)) {
+            listeners.close().addListener(unbound -> {
+                Titanite.LOG.info(id + " stopped listening, draining " + connections.size() + " connection(s)");
+
+                CompletableFuture<?>[] closeFutures = connections.stream().map(GracefulShutdown::closeFuture).toArray(CompletableFuture<?>[]::new);
+                connections.forEach(c -> c.pipeline().fireUserEventTriggered(DRAIN));
+
+                ScheduledFuture<?> deadline = GlobalEventExecutor.INSTANCE.schedule(() -> {
+                    Titanite.LOG.warn(id + " drain timeout expired, closing " + connections.size() + " connection(s)");
+                    connections.close();
+                }, drainTimeout, TimeUnit.MILLISECONDS);
+
+                CompletableFuture.allOf(closeFutures).whenComplete((v, e) -> {
+                    deadline.cancel(false);
+                    connections.close().addListener(closed -> { // also closes connections accepted while unbinding
+                        release.run();
+                        stopped.complete(null);
+                    });
+                });
+            });
+        }
+        return stopped;
+    }
+
+    private static CompletableFuture<Void> closeFuture(Channel channel) {
+        CompletableFuture<Void> closed = new CompletableFuture<>();
+        channel.closeFuture().addListener(f -> closed.complete(null));
+        return closed;
+    }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nosceon.titanite;
+
+import io.netty.handler.codec.http.HttpHeaders.Names;
+
+import static io.netty.handler.codec.http.HttpHeaders.newEntity;
+
+/**
+ * Header names with a precomputed hash and encoding, looked up and written without going over the name again.
+ *
+ * @author Johan Siebens
+ */
+public final class HeaderNames {
+
+    public static final CharSequence ACCEPT = newEntity(Names.ACCEPT);
+
+    public static final CharSequence ACCEPT_ENCODING = newEntity(Names.ACCEPT_ENCODING);
+
+    public static final CharSequence ACCEPT_LANGUAGE = newEntity(Names.ACCEPT_LANGUAGE);
+
+    public static final CharSequence ALLOW = newEntity(Names.ALLOW);
+
+    public static final CharSequence AUTHORIZATION = newEntity(Names.AUTHORIZATION);
+
+    public static final CharSequence CACHE_CONTROL = newEntity(Names.CACHE_CONTROL);
+
+    public static final CharSequence CONTENT_ENCODING = newEntity(Names.CONTENT_ENCODING);
+
+    public static final CharSequence CONTENT_LANGUAGE = newEntity(Names.CONTENT_LANGUAGE);
+
+    public static final CharSequence CONTENT_LENGTH = newEntity(Names.CONTENT_LENGTH);
+
+    public static final CharSequence CONTENT_TYPE = newEntity(Names.CONTENT_TYPE);
+
+    public static final CharSequence COOKIE = newEntity(Names.COOKIE);
+
+    public static final CharSequence HOST = newEntity(Names.HOST);
+
+    public static final CharSequence IF_MODIFIED_SINCE = newEntity(Names.IF_MODIFIED_SINCE);
+
+    public static final CharSequence LAST_MODIFIED = newEntity(Names.LAST_MODIFIED);
+
+    public static final CharSequence LOCATION = newEntity(Names.LOCATION);
+
+    public static final CharSequence RETRY_AFTER = newEntity(Names.RETRY_AFTER);
+
+    public static final CharSequence SET_COOKIE = newEntity(Names.SET_COOKIE);
+
+    public static final CharSequence WWW_AUTHENTICATE = newEntity(Names.WWW_AUTHENTICATE);
+
+    private HeaderNames() {
+    }
+
+}
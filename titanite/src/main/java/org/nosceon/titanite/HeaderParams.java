@@ -22,7 +22,6 @@ import org.nosceon.titanite.exception.InvalidHeaderParamException;
 import java.text.ParseException;
 import java.util.Date;
 import java.util.List;
-import java.util.Optional;
 import java.util.Set;
 
 import static java.util.Collections.unmodifiableSet;
@@ -38,6 +37,10 @@ public final class HeaderParams extends MultiParams {
         this.message = message;
     }
 
+    void reset(HttpMessage message) {
+        this.message = message;
+    }
+
     @Override
     public String getString(String name) {
         return HttpHeaders.getHeader(message, name);
@@ -48,16 +51,30 @@ public final class HeaderParams extends MultiParams {
         return message.headers().getAll(name);
     }
 
-    public Date getDate(String name) {
-        return Optional.ofNullable(HttpHeaders.getHeader(message, name))
-            .flatMap((o) -> {
-                try {
-                    return Optional.of(HttpHeaders.getDateHeader(message, name));
-                }
-                catch (ParseException e) {
-                    return Optional.empty();
-                }
-            }).orElse(null);
+    // the value as received, names from HeaderNames are looked up without hashing them again
+
+    public CharSequence get(CharSequence name) {
+        return message.headers().get(name);
+    }
+
+    public boolean contains(CharSequence name) {
+        return message.headers().contains(name);
+    }
+
+    public boolean contains(CharSequence name, CharSequence value) {
+        return message.headers().contains(name, value, true);
+    }
+
+    public Date getDate(CharSequence name) {
+        if (!message.headers().contains(name)) {
+            return null;
+        }
+        try {
+            return HttpHeaders.getDateHeader(message, name);
+        }
+        catch (ParseException e) {
+            return null;
+        }
     }
 
     @Override
@@ -15,8 +15,11 @@
  */
 package org.nosceon.titanite;
 
-import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.FastThreadLocalThread;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -62,9 +65,23 @@ public final class HttpServer extends AbstractHttpServerBuilder<HttpServer> {
     }
 
     public Shutdownable start() {
-        NioEventLoopGroup eventLoopGroup = new NioEventLoopGroup(config.ioWorkerCount(), new NamedThreadFactory("Titanite " + id + " - "));
-        start(eventLoopGroup, config);
-        return eventLoopGroup::shutdownGracefully;
+        EventLoopGroup eventLoopGroup = Transports.newEventLoopGroup(config.transport(), config.ioWorkerCount(), new NamedThreadFactory("Titanite " + id + " - "));
+
+        if (config.acceptorCount() > 0) {
+            EventLoopGroup acceptorGroup = Transports.newEventLoopGroup(config.transport(), config.acceptorCount(), new NamedThreadFactory("Titanite " + id + " - acceptor - "));
+            Shutdownable server = start(acceptorGroup, eventLoopGroup, config);
+            return () -> server.stop().thenCompose(v -> shutdownGracefully(acceptorGroup)).thenCompose(v -> shutdownGracefully(eventLoopGroup));
+        }
+        else {
+            Shutdownable server = start(eventLoopGroup, config);
+            return () -> server.stop().thenCompose(v -> shutdownGracefully(eventLoopGroup));
+        }
+    }
+
+    private static CompletionStage<Void> shutdownGracefully(EventLoopGroup group) {
+        CompletableFuture<Void> terminated = new CompletableFuture<>();
+        group.shutdownGracefully().addListener(f -> terminated.complete(null));
+        return terminated;
     }
 
     @Override
@@ -84,7 +101,7 @@ public final class HttpServer extends AbstractHttpServerBuilder<HttpServer> {
 
         @Override
         public Thread newThread(Runnable r) {
-            return new Thread(r, prefix + counter.incrementAndGet());
+            return new FastThreadLocalThread(r, prefix + counter.incrementAndGet()); // fast path for the per thread state of the router and the request pool
         }
 
     }
@@ -15,28 +15,36 @@
  */
 package org.nosceon.titanite;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.*;
 import io.netty.handler.codec.http.websocketx.WebSocketFrame;
 import org.nosceon.titanite.body.BodyParser;
+import org.nosceon.titanite.body.BodyStream;
 import org.nosceon.titanite.body.EmptyBodyParser;
 import org.nosceon.titanite.body.FormParamsBodyParser;
 import org.nosceon.titanite.body.RawBodyParser;
+import org.nosceon.titanite.body.StreamingBodyParser;
 
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.Optional;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
 
-import static io.netty.handler.codec.http.HttpHeaders.Names.COOKIE;
-import static io.netty.handler.codec.http.HttpHeaders.is100ContinueExpected;
 import static io.netty.handler.codec.http.HttpHeaders.isKeepAlive;
+import static io.netty.handler.codec.http.HttpHeaders.isTransferEncodingChunked;
+import static io.netty.handler.codec.http.HttpHeaders.setContentLength;
+import static io.netty.handler.codec.http.HttpHeaders.setKeepAlive;
+import static java.util.Collections.emptyMap;
 import static java.util.concurrent.CompletableFuture.completedFuture;
-import static java.util.stream.Collectors.toMap;
 import static org.nosceon.titanite.Exceptions.internalServerError;
 import static org.nosceon.titanite.Exceptions.requestEntityTooLarge;
+import static org.nosceon.titanite.Exceptions.serviceUnavailable;
 
 /**
  * @author Johan Siebens
@@ -45,7 +53,14 @@ final class HttpServerHandler extends SimpleChannelInboundHandler<Object> {
 
     private static final FullHttpResponse CONTINUE = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.CONTINUE, Unpooled.EMPTY_BUFFER);
 
-    private final Router router;
+    private static final CompletionStage<Void> WRITTEN = completedFuture(null);
+
+    // fired by the handlers in front of the content decompressor, which holds back the request head until its body is received
+    static final Object CONTINUE_EXPECTED = new Object();
+
+    private final RouteTable router;
+
+    // state of the request currently being received, handlers of earlier requests may still be running
 
     private HttpRequest request;
 
@@ -55,19 +70,55 @@ final class HttpServerHandler extends SimpleChannelInboundHandler<Object> {
 
     private BodyParser bodyParser;
 
+    private boolean admitted;
+
+    // streaming requests are dispatched as soon as they are routed, before their body is received
+
+    private boolean dispatched;
+
+    private int continueSequence = -1; // a 100 continue waiting for the earlier responses to be written
+
+    private boolean bodyPaused; // the consumer of a streaming body fell behind
+
+    private boolean rejected;
+
     private final long maxRequestSize;
 
     private final long maxMultipartRequestSize;
 
+    private final int maxPipelinedRequests;
+
+    private final Limit requestLimit;
+
+    private final int retryAfter;
+
     private final WebsocketHandler websocketHandler = new WebsocketHandler();
 
     private final boolean secure;
 
-    public HttpServerHandler(boolean secure, long maxRequestSize, long maxMultipartRequestSize, Router router) {
+    private final boolean recycleRequests;
+
+    // pipelined responses waiting for their turn, only accessed on the event loop
+
+    private final Map<Integer, Supplier<CompletionStage<Void>>> pendingResponses = new HashMap<>();
+
+    private int received;
+
+    private int written;
+
+    private boolean writing;
+
+    private boolean draining;
+
+    public HttpServerHandler(boolean secure, long maxRequestSize, long maxMultipartRequestSize, int maxPipelinedRequests, Limit requestLimit, int retryAfter, boolean recycleRequests, RouteTable router) {
         this.secure = secure;
+        this.recycleRequests = recycleRequests;
         this.router = router;
         this.maxRequestSize = maxRequestSize;
         this.maxMultipartRequestSize = maxMultipartRequestSize;
+        this.maxPipelinedRequests = maxPipelinedRequests;
+        this.requestLimit = requestLimit;
+        this.retryAfter = retryAfter;
     }
 
     @Override
@@ -78,19 +129,26 @@ final class HttpServerHandler extends SimpleChannelInboundHandler<Object> {
         }
 
         if (msg instanceof HttpRequest) {
-            if (is100ContinueExpected((HttpRequest) msg)) {
-                ctx.writeAndFlush(CONTINUE).addListener(future -> {
-                    if (!future.isSuccess()) {
-                        ctx.fireExceptionCaught(future.cause());
-                    }
-                });
-            }
+            this.admitted = requestLimit.tryAcquire();
 
             this.request = (HttpRequest) msg;
             this.qsd = new QueryStringDecoder(request.getUri());
-            this.routing = router.find(request.getMethod(), qsd.path());
-            this.bodyParser = newBodyParser(routing, request);
-            this.bodyParser.initialize(ctx, request);
+
+            if (admitted) {
+                this.routing = router.find(request.getMethod(), qsd.path());
+                this.bodyParser = routing.raw() != null ? null : newBodyParser(routing, request, maxRequestSize, maxMultipartRequestSize); // raw routes ignore the body
+            }
+            else {
+                this.bodyParser = new EmptyBodyParser(); // rejected without routing, the body is discarded
+            }
+            if (bodyParser != null) {
+                this.bodyParser.initialize(ctx, request);
+            }
+
+            if (admitted && bodyParser instanceof StreamingBodyParser) {
+                this.dispatched = true;
+                dispatch(ctx, received++, request, qsd, routing, bodyParser);
+            }
         }
 
         if (msg instanceof HttpContent) {
@@ -101,66 +159,303 @@ final class HttpServerHandler extends SimpleChannelInboundHandler<Object> {
             }
 
             if (chunk instanceof LastHttpContent) {
+                HttpRequest request = this.request;
+                QueryStringDecoder qsd = this.qsd;
+                RoutingResult routing = this.routing;
+                BodyParser bodyParser = this.bodyParser;
+                boolean dispatched = this.dispatched;
+                int sequence = dispatched ? -1 : received++;
+
+                this.request = null;
+                this.qsd = null;
+                this.routing = null;
+                this.bodyParser = null;
+                this.dispatched = false;
+                this.continueSequence = -1;
+                this.bodyPaused = false; // the body is received, reading on is up to the pipelined responses
+
+                updateReads(ctx);
+
+                if (dispatched) {
+                    if (draining) {
+                        closeIfIdle(ctx); // its response may have been written before the body was received
+                    }
+                    return;
+                }
 
-                Map<String, CookieParam> cookies = Optional.ofNullable(request.headers().get(COOKIE))
-                    .map(CookieDecoder::decode)
-                    .map(s -> s.stream().collect(toMap(io.netty.handler.codec.http.Cookie::getName, CookieParam::new)))
-                    .orElseGet(Collections::emptyMap);
-
-                request.headers().set(HttpHeaders.Names.CONTENT_LENGTH, bodyParser.size());
-
-                Request req =
-                    new Request(
-                        secure,
-                        Method.valueOf(request.getMethod().name()),
-                        qsd.path(),
-                        new HeaderParams(request),
-                        new CookieParams(cookies),
-                        new PathParams(routing.pathParams()),
-                        new QueryParams(qsd.parameters()),
-                        bodyParser.body()
-                    );
-
-                if (bodyParser.isMaximumExceeded()) {
-                    requestEntityTooLarge().apply(request, websocketHandler, isKeepAlive(request), req, ctx);
+                if (!admitted) {
+                    Request req = new Request(secure, Method.valueOf(request.getMethod().name()), qsd.path(), new HeaderParams(request), new CookieParams(), new PathParams(emptyMap()), new QueryParams(emptyMap()), bodyParser.body());
+                    respond(ctx, sequence, request, () -> serviceUnavailable(retryAfter).apply(request, websocketHandler, isKeepAlive(request), req, ctx));
+                    return;
                 }
-                else {
-                    completedFuture(req)
-                        .thenCompose(r -> routing.handler().apply(r))
-                        .whenComplete((resp, ex) -> {
-                            releaseBodyParser();
-                            Response response = resp;
-                            if (ex != null) {
-                                if (ex instanceof CompletionException) {
-                                    ex = lookupCause(ex);
-                                }
-
-                                if (ex instanceof InternalRuntimeException) {
-                                    ex = lookupCause(ex);
-                                }
-
-                                if (ex instanceof HttpServerException) {
-                                    response = ((HttpServerException) ex).getResponse();
-
-                                    if (response.status() >= 500) {
-                                        Titanite.LOG.error("error processing request", ex);
-                                    }
-                                }
-                                else {
-                                    Titanite.LOG.error("error processing request", ex);
-                                    response = internalServerError();
-                                }
-                            }
-                            response.apply(request, websocketHandler, isKeepAlive(request), req, ctx);
-                        });
+
+                if (routing.raw() != null) {
+                    handleRaw(ctx, sequence, request, qsd.path(), routing);
+                    return;
                 }
 
+                request.headers().set(HeaderNames.CONTENT_LENGTH, bodyParser.size());
+
+                dispatch(ctx, sequence, request, qsd, routing, bodyParser);
+            }
+        }
+
+    }
+
+    private void dispatch(ChannelHandlerContext ctx, int sequence, HttpRequest request, QueryStringDecoder qsd, RoutingResult routing, BodyParser bodyParser) {
+        Request req = recycleRequests ?
+            Request.pooled(
+                secure,
+                Method.valueOf(request.getMethod().name()),
+                qsd.path(),
+                request,
+                routing.pathParams(),
+                qsd,
+                bodyParser.body()
+            ) :
+            new Request(
+                secure,
+                Method.valueOf(request.getMethod().name()),
+                qsd.path(),
+                new HeaderParams(request),
+                new CookieParams(request.headers().get(HeaderNames.COOKIE)),
+                new PathParams(routing.pathParams()),
+                new QueryParams(qsd),
+                bodyParser.body()
+            );
+
+        if (bodyParser.isMaximumExceeded()) {
+            requestLimit.release();
+            Response response = requestEntityTooLarge();
+            respond(ctx, sequence, request, () -> release(req, response, response.apply(request, websocketHandler, isKeepAlive(request), req, ctx)));
+        }
+        else {
+            completedFuture(req)
+                .thenCompose(r -> routing.handler().apply(r))
+                .whenComplete((resp, ex) -> {
+                    requestLimit.release();
+                    bodyParser.release();
+                    Response r = ex != null ? errorResponse(ex) : resp;
+                    respond(ctx, sequence, request, () -> release(req, r, r.apply(request, websocketHandler, isKeepAlive(request), req, ctx)));
+                });
+        }
+    }
+
+    // a web socket lives on after its handshake response, its handlers may still refer to the request
+    private CompletionStage<Void> release(Request req, Response response, CompletionStage<Void> written) {
+        if (!recycleRequests || response.isWebSocket()) {
+            return written;
+        }
+        return written.whenComplete((v, e) -> req.release());
+    }
+
+    private void handleRaw(ChannelHandlerContext ctx, int sequence, HttpRequest request, String path, RoutingResult routing) {
+        RawExchange exchange = new RawExchange(this, ctx, sequence, request, path, routing.pathParams(), secure);
+        try {
+            routing.raw().handle(exchange);
+        }
+        catch (Exception e) {
+            Titanite.LOG.error("error processing request", e);
+            if (!exchange.isResponded()) {
+                exchange.respond(HttpResponseStatus.INTERNAL_SERVER_ERROR.code());
             }
         }
+    }
+
+    // responses of raw routes are written directly when nothing is waiting before them
+    void respond(ChannelHandlerContext ctx, int sequence, HttpRequest request, FullHttpResponse response) {
+        onEventLoop(ctx, () -> {
+            requestLimit.release();
+            if (!writing && sequence == written) {
+                write(ctx, sequence, request, response);
+                responseWritten(ctx);
+            }
+            else {
+                pendingResponses.put(sequence, () -> {
+                    write(ctx, sequence, request, response);
+                    return WRITTEN;
+                });
+                writeResponses(ctx);
+            }
+        });
+    }
+
+    private void write(ChannelHandlerContext ctx, int sequence, HttpRequest request, FullHttpResponse response) {
+        boolean keepAlive = isKeepAlive(request) && !isLastWhileDraining(sequence);
+        setKeepAlive(response, keepAlive);
+        if (hasBody(response.getStatus()) && !response.headers().contains(HeaderNames.CONTENT_LENGTH) && !isTransferEncodingChunked(response)) {
+            setContentLength(response, response.content().readableBytes()); // the end of the response, for a connection that is kept alive
+        }
+        ChannelFuture future = ctx.writeAndFlush(response);
+        if (!keepAlive) {
+            future.addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+    private static boolean hasBody(HttpResponseStatus status) {
+        return status.code() >= 200 && status.code() != 204 && status.code() != 304;
+    }
 
+    private boolean isLastWhileDraining(int sequence) {
+        return draining && sequence == received - 1 && this.request == null;
     }
 
-    private Throwable lookupCause(Throwable e) {
+    private void respond(ChannelHandlerContext ctx, int sequence, HttpRequest request, Supplier<CompletionStage<Void>> response) {
+        onEventLoop(ctx, () -> {
+            pendingResponses.put(sequence, () -> {
+                if (isLastWhileDraining(sequence)) {
+                    setKeepAlive(request, false); // last response of a draining connection
+                }
+                return response.get();
+            });
+            writeResponses(ctx);
+        });
+    }
+
+    private void writeResponses(ChannelHandlerContext ctx) {
+        while (!writing) {
+            Supplier<CompletionStage<Void>> next = pendingResponses.remove(written);
+            if (next == null) {
+                return;
+            }
+
+            writing = true;
+            next.get().whenComplete((v, e) -> onEventLoop(ctx, () -> {
+                writing = false;
+                responseWritten(ctx);
+            }));
+        }
+    }
+
+    private void responseWritten(ChannelHandlerContext ctx) {
+        written++;
+        if (continueSequence == written) {
+            continueSequence = -1;
+            writeContinue(ctx);
+        }
+        if (draining) {
+            closeIfIdle(ctx);
+        }
+        else {
+            updateReads(ctx);
+        }
+        writeResponses(ctx);
+    }
+
+    // the only place the connection is paused or resumed, as the pipelined responses, a streaming body and draining may all ask for it
+    private void updateReads(ChannelHandlerContext ctx) {
+        int pipelined = received - written - (dispatched ? 1 : 0); // a streaming request still being received does not count
+        boolean read = !rejected && !bodyPaused && !(draining && request == null) && pipelined < maxPipelinedRequests;
+        if (ctx.channel().config().isAutoRead() != read) {
+            ctx.channel().config().setAutoRead(read);
+        }
+    }
+
+    // an interim response must not overtake the responses of earlier requests
+    private void expectContinue(ChannelHandlerContext ctx) {
+        if (written == received) {
+            writeContinue(ctx);
+        }
+        else {
+            this.continueSequence = received;
+        }
+    }
+
+    private static void writeContinue(ChannelHandlerContext ctx) {
+        ctx.writeAndFlush(CONTINUE).addListener(future -> {
+            if (!future.isSuccess()) {
+                ctx.fireExceptionCaught(future.cause());
+            }
+        });
+    }
+
+    // the rejection takes the place of the request being received and is the last response on the connection
+    private void reject(ChannelHandlerContext ctx, Rejection rejection) {
+        this.rejected = true;
+        updateReads(ctx);
+        releaseCurrentRequest();
+
+        this.request = null;
+        this.qsd = null;
+        this.routing = null;
+        this.dispatched = false;
+        this.continueSequence = -1;
+
+        int sequence = received++;
+        pendingResponses.put(sequence, () -> {
+            rejection.write().addListener(ChannelFutureListener.CLOSE);
+            return WRITTEN;
+        });
+        writeResponses(ctx);
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (evt == CONTINUE_EXPECTED) {
+            expectContinue(ctx);
+        }
+        else if (evt instanceof Rejection) {
+            reject(ctx, (Rejection) evt);
+        }
+        else if (evt instanceof BodyStream.Backpressure) {
+            this.bodyPaused = evt == BodyStream.Backpressure.PAUSE && request != null;
+            updateReads(ctx);
+        }
+        else if (evt == GracefulShutdown.DRAIN) {
+            draining = true;
+            if (websocketHandler.isOpen()) {
+                websocketHandler.close();
+            }
+            else if (request == null) {
+                updateReads(ctx);
+                closeIfIdle(ctx);
+            }
+        }
+        else {
+            super.userEventTriggered(ctx, evt);
+        }
+    }
+
+    private void closeIfIdle(ChannelHandlerContext ctx) {
+        if (request == null && written == received && ctx.channel().isOpen()) {
+            // an empty write below the http codecs completes once all responses before it are flushed
+            ctx.pipeline().firstContext().writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+    private static void onEventLoop(ChannelHandlerContext ctx, Runnable task) {
+        if (ctx.executor().inEventLoop()) {
+            task.run();
+        }
+        else {
+            ctx.executor().execute(task);
+        }
+    }
+
+    static Response errorResponse(Throwable ex) {
+        if (ex instanceof CompletionException) {
+            ex = lookupCause(ex);
+        }
+
+        if (ex instanceof InternalRuntimeException) {
+            ex = lookupCause(ex);
+        }
+
+        if (ex instanceof HttpServerException) {
+            Response response = ((HttpServerException) ex).getResponse();
+
+            if (response.status() >= 500) {
+                Titanite.LOG.error("error processing request", ex);
+            }
+            return response;
+        }
+        else {
+            Titanite.LOG.error("error processing request", ex);
+            return internalServerError();
+        }
+    }
+
+    private static Throwable lookupCause(Throwable e) {
         Throwable cause = e.getCause();
         if (cause != null) {
             return cause;
@@ -171,24 +466,47 @@ final class HttpServerHandler extends SimpleChannelInboundHandler<Object> {
     @Override
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
         super.channelInactive(ctx);
-        releaseBodyParser();
+        releaseCurrentRequest();
     }
 
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
         Titanite.LOG.warn("error handling request", cause);
-        releaseBodyParser();
+        releaseCurrentRequest();
         ctx.channel().close();
     }
 
-    private void releaseBodyParser() {
+    private void releaseCurrentRequest() {
         if (bodyParser != null) {
             bodyParser.release();
             bodyParser = null;
         }
+        if (request != null && admitted && !dispatched) {
+            requestLimit.release(); // request not completely received
+            request = null;
+        }
+    }
+
+    // fired by the handlers in front of the decoders when a request can not be decoded, e.g. exceeding the connector limits
+    static final class Rejection {
+
+        private final ChannelHandlerContext ctx;
+
+        private final ByteBuf response;
+
+        Rejection(ChannelHandlerContext ctx, ByteBuf response) {
+            this.ctx = ctx;
+            this.response = response;
+        }
+
+        // written by the rejecting handler, below the response encoder and compressor which never saw the request
+        ChannelFuture write() {
+            return ctx.writeAndFlush(response.duplicate());
+        }
+
     }
 
-    private BodyParser newBodyParser(RoutingResult routing, HttpRequest request) {
+    static BodyParser newBodyParser(RoutingResult routing, HttpRequest request, long maxRequestSize, long maxMultipartRequestSize) {
         HttpMethod method = request.getMethod();
         if (method.equals(HttpMethod.POST) || method.equals(HttpMethod.PUT) || method.equals(HttpMethod.PATCH)) {
 
@@ -199,7 +517,7 @@ final class HttpServerHandler extends SimpleChannelInboundHandler<Object> {
                 }
             }
 
-            String contentType = request.headers().get(HttpHeaders.Names.CONTENT_TYPE);
+            String contentType = request.headers().get(HeaderNames.CONTENT_TYPE);
 
             if (contentType != null) {
                 String lowerCaseContentType = contentType.toLowerCase();
@@ -17,6 +17,7 @@ package org.nosceon.titanite;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -29,21 +30,66 @@ public final class ImmutableSettings implements Settings {
         return new Builder();
     }
 
+    public static ConnectorBuilder newHttpConnector(int port) {
+        return new ConnectorBuilder(ConnectorType.HTTP, port);
+    }
+
+    public static ConnectorBuilder newHttpsConnector(int port) {
+        return new ConnectorBuilder(ConnectorType.HTTPS, port);
+    }
+
+    private final Transport transport;
+
+    private final int acceptorCount;
+
     private final int ioWorkerCount;
 
     private final long maxRequestSize;
 
     private final long maxMultipartRequestSize;
 
+    private final int maxPipelinedRequests;
+
+    private final long drainTimeout;
+
+    private final int maxConnections;
+
+    private final int maxInflightRequests;
+
+    private final int retryAfter;
+
+    private final int routeCacheSize;
+
+    private final boolean recycleRequests;
+
     private final List<Connector> connectors;
 
-    private ImmutableSettings(int ioWorkerCount, long maxRequestSize, long maxMultipartRequestSize, List<Connector> connectors) {
+    private ImmutableSettings(Transport transport, int acceptorCount, int ioWorkerCount, long maxRequestSize, long maxMultipartRequestSize, int maxPipelinedRequests, long drainTimeout, int maxConnections, int maxInflightRequests, int retryAfter, int routeCacheSize, boolean recycleRequests, List<Connector> connectors) {
+        this.transport = transport;
+        this.acceptorCount = acceptorCount;
         this.ioWorkerCount = ioWorkerCount;
         this.maxRequestSize = maxRequestSize;
         this.maxMultipartRequestSize = maxMultipartRequestSize;
+        this.maxPipelinedRequests = maxPipelinedRequests;
+        this.drainTimeout = drainTimeout;
+        this.maxConnections = maxConnections;
+        this.maxInflightRequests = maxInflightRequests;
+        this.retryAfter = retryAfter;
+        this.routeCacheSize = routeCacheSize;
+        this.recycleRequests = recycleRequests;
         this.connectors = Collections.unmodifiableList(new ArrayList<>(connectors));
     }
 
+    @Override
+    public Transport transport() {
+        return transport;
+    }
+
+    @Override
+    public int acceptorCount() {
+        return acceptorCount;
+    }
+
     @Override
     public int ioWorkerCount() {
         return ioWorkerCount;
@@ -59,6 +105,41 @@ public final class ImmutableSettings implements Settings {
         return maxMultipartRequestSize;
     }
 
+    @Override
+    public int maxPipelinedRequests() {
+        return maxPipelinedRequests;
+    }
+
+    @Override
+    public long drainTimeout() {
+        return drainTimeout;
+    }
+
+    @Override
+    public int maxConnections() {
+        return maxConnections;
+    }
+
+    @Override
+    public int maxInflightRequests() {
+        return maxInflightRequests;
+    }
+
+    @Override
+    public int retryAfter() {
+        return retryAfter;
+    }
+
+    @Override
+    public int routeCacheSize() {
+        return routeCacheSize;
+    }
+
+    @Override
+    public boolean recycleRequests() {
+        return recycleRequests;
+    }
+
     @Override
     public List<Connector> connectors() {
         return connectors;
@@ -67,14 +148,42 @@ public final class ImmutableSettings implements Settings {
 
     public static class Builder {
 
+        private Transport transport = DEFAULT_TRANSPORT;
+
+        private int acceptorCount = DEFAULT_ACCEPTOR_COUNT;
+
         private int ioWorkerCount = DEFAULT_IO_WORKER_COUNT;
 
         private long maxRequestSize = DEFAULT_MAX_REQUEST_SIZE;
 
         private long maxMultipartRequestSize = DEFAULT_MAX_MULTI_PART_REQUEST_SIZE;
 
+        private int maxPipelinedRequests = DEFAULT_MAX_PIPELINED_REQUESTS;
+
+        private long drainTimeout = DEFAULT_DRAIN_TIMEOUT;
+
+        private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+
+        private int maxInflightRequests = DEFAULT_MAX_INFLIGHT_REQUESTS;
+
+        private int retryAfter = DEFAULT_RETRY_AFTER;
+
+        private int routeCacheSize = DEFAULT_ROUTE_CACHE_SIZE;
+
+        private boolean recycleRequests = DEFAULT_RECYCLE_REQUESTS;
+
         private List<Connector> connectors = new ArrayList<>();
 
+        public Builder setTransport(Transport transport) {
+            this.transport = transport;
+            return this;
+        }
+
+        public Builder setAcceptorCount(int acceptorCount) {
+            this.acceptorCount = acceptorCount;
+            return this;
+        }
+
         public Builder setIoWorkerCount(int ioWorkerCount) {
             this.ioWorkerCount = ioWorkerCount;
             return this;
@@ -90,43 +199,306 @@ public final class ImmutableSettings implements Settings {
             return this;
         }
 
-        public Builder addHttpConnector(int port) {
-            this.connectors.add(new ImmutableConnector(ConnectorType.HTTP, null, port, null, null, null));
+        public Builder setMaxPipelinedRequests(int maxPipelinedRequests) {
+            this.maxPipelinedRequests = maxPipelinedRequests;
             return this;
         }
 
-        public Builder addHttpConnector(String address, int port) {
-            this.connectors.add(new ImmutableConnector(ConnectorType.HTTP, address, port, null, null, null));
+        public Builder setDrainTimeout(long drainTimeout) {
+            this.drainTimeout = drainTimeout;
             return this;
         }
 
-        public Builder addHttpsConnector(int port) {
-            this.connectors.add(new ImmutableConnector(ConnectorType.HTTPS, null, port, null, null, null));
+        public Builder setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
             return this;
         }
 
-        public Builder addHttpsConnector(int port, File certificatePath, File keyPath) {
-            this.connectors.add(new ImmutableConnector(ConnectorType.HTTPS, null, port, certificatePath, keyPath, null));
+        public Builder setMaxInflightRequests(int maxInflightRequests) {
+            this.maxInflightRequests = maxInflightRequests;
             return this;
         }
 
-        public Builder addHttpsConnector(String address, int port, File certificatePath, File keyPath) {
-            this.connectors.add(new ImmutableConnector(ConnectorType.HTTPS, address, port, certificatePath, keyPath, null));
+        public Builder setRetryAfter(int retryAfter) {
+            this.retryAfter = retryAfter;
             return this;
         }
 
-        public Builder addHttpsConnector(int port, File certificatePath, File keyPath, String keyPassword) {
-            this.connectors.add(new ImmutableConnector(ConnectorType.HTTPS, null, port, certificatePath, keyPath, keyPassword));
+        public Builder setRouteCacheSize(int routeCacheSize) {
+            this.routeCacheSize = routeCacheSize;
             return this;
         }
 
+        public Builder setRecycleRequests(boolean recycleRequests) {
+            this.recycleRequests = recycleRequests;
+            return this;
+        }
+
+        public Builder addHttpConnector(int port) {
+            return addConnector(newHttpConnector(port));
+        }
+
+        public Builder addHttpConnector(String address, int port) {
+            return addConnector(newHttpConnector(port).setAddress(address));
+        }
+
+        public Builder addHttpsConnector(int port) {
+            return addConnector(newHttpsConnector(port));
+        }
+
+        public Builder addHttpsConnector(int port, File certificatePath, File keyPath) {
+            return addConnector(newHttpsConnector(port).setCertificate(certificatePath, keyPath));
+        }
+
+        public Builder addHttpsConnector(String address, int port, File certificatePath, File keyPath) {
+            return addConnector(newHttpsConnector(port).setAddress(address).setCertificate(certificatePath, keyPath));
+        }
+
+        public Builder addHttpsConnector(int port, File certificatePath, File keyPath, String keyPassword) {
+            return addConnector(newHttpsConnector(port).setCertificate(certificatePath, keyPath, keyPassword));
+        }
+
         public Builder addHttpsConnector(String address, int port, File certificatePath, File keyPath, String keyPassword) {
-            this.connectors.add(new ImmutableConnector(ConnectorType.HTTPS, address, port, certificatePath, keyPath, keyPassword));
+            return addConnector(newHttpsConnector(port).setAddress(address).setCertificate(certificatePath, keyPath, keyPassword));
+        }
+
+        public Builder addConnector(ConnectorBuilder connector) {
+            return addConnector(connector.build());
+        }
+
+        public Builder addConnector(Connector connector) {
+            this.connectors.add(connector);
             return this;
         }
 
         public Settings build() {
-            return new ImmutableSettings(ioWorkerCount, maxRequestSize, maxMultipartRequestSize, connectors);
+            return new ImmutableSettings(transport, acceptorCount, ioWorkerCount, maxRequestSize, maxMultipartRequestSize, maxPipelinedRequests, drainTimeout, maxConnections, maxInflightRequests, retryAfter, routeCacheSize, recycleRequests, connectors);
+        }
+
+    }
+
+
+    public static class ConnectorBuilder {
+
+        private final ConnectorType type;
+
+        private final int port;
+
+        private String address;
+
+        private File certificatePath;
+
+        private File keyPath;
+
+        private String keyPassword;
+
+        private boolean tcpCork = false;
+
+        private int listeners = 1;
+
+        private boolean tcpNoDelay = true;
+
+        private int soBacklog = 0;
+
+        private int receiveBufferSize = 0;
+
+        private int sendBufferSize = 0;
+
+        private int writeBufferHighWaterMark = 0;
+
+        private int writeBufferLowWaterMark = 0;
+
+        private Allocator allocator = Allocator.DEFAULT;
+
+        private int maxInitialLineLength = DEFAULT_MAX_INITIAL_LINE_LENGTH;
+
+        private int maxHeaderSize = DEFAULT_MAX_HEADER_SIZE;
+
+        private int maxChunkSize = DEFAULT_MAX_CHUNK_SIZE;
+
+        private boolean validateHeaders = true;
+
+        private long idleTimeout = DEFAULT_IDLE_TIMEOUT;
+
+        private long headerReadTimeout = DEFAULT_HEADER_READ_TIMEOUT;
+
+        private long bodyReadTimeout = DEFAULT_BODY_READ_TIMEOUT;
+
+        private long writeTimeout = DEFAULT_WRITE_TIMEOUT;
+
+        private long streamIdleTimeout = DEFAULT_STREAM_IDLE_TIMEOUT;
+
+        private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+
+        private int maxInflightRequests = DEFAULT_MAX_INFLIGHT_REQUESTS;
+
+        private SslProvider sslProvider = SslProvider.JDK;
+
+        private List<String> ciphers = Collections.emptyList();
+
+        private List<String> protocols = Collections.emptyList();
+
+        private long sessionCacheSize = 0;
+
+        private long sessionTimeout = 0;
+
+        private byte[] ticketKeys = null;
+
+        private ConnectorBuilder(ConnectorType type, int port) {
+            this.type = type;
+            this.port = port;
+        }
+
+        public ConnectorBuilder setAddress(String address) {
+            this.address = address;
+            return this;
+        }
+
+        public ConnectorBuilder setCertificate(File certificatePath, File keyPath) {
+            return setCertificate(certificatePath, keyPath, null);
+        }
+
+        public ConnectorBuilder setCertificate(File certificatePath, File keyPath, String keyPassword) {
+            this.certificatePath = certificatePath;
+            this.keyPath = keyPath;
+            this.keyPassword = keyPassword;
+            return this;
+        }
+
+        public ConnectorBuilder setTcpCork(boolean tcpCork) {
+            this.tcpCork = tcpCork;
+            return this;
+        }
+
+        public ConnectorBuilder setListeners(int listeners) {
+            this.listeners = listeners;
+            return this;
+        }
+
+        public ConnectorBuilder setTcpNoDelay(boolean tcpNoDelay) {
+            this.tcpNoDelay = tcpNoDelay;
+            return this;
+        }
+
+        public ConnectorBuilder setSoBacklog(int soBacklog) {
+            this.soBacklog = soBacklog;
+            return this;
+        }
+
+        public ConnectorBuilder setReceiveBufferSize(int receiveBufferSize) {
+            this.receiveBufferSize = receiveBufferSize;
+            return this;
+        }
+
+        public ConnectorBuilder setSendBufferSize(int sendBufferSize) {
+            this.sendBufferSize = sendBufferSize;
+            return this;
+        }
+
+        public ConnectorBuilder setWriteBufferWaterMark(int low, int high) {
+            if (low > high) {
+                throw new IllegalArgumentException("write buffer low water mark cannot be greater than the high water mark");
+            }
+            this.writeBufferLowWaterMark = low;
+            this.writeBufferHighWaterMark = high;
+            return this;
+        }
+
+        public ConnectorBuilder setAllocator(Allocator allocator) {
+            this.allocator = allocator;
+            return this;
+        }
+
+        public ConnectorBuilder setMaxInitialLineLength(int maxInitialLineLength) {
+            this.maxInitialLineLength = maxInitialLineLength;
+            return this;
+        }
+
+        public ConnectorBuilder setMaxHeaderSize(int maxHeaderSize) {
+            this.maxHeaderSize = maxHeaderSize;
+            return this;
+        }
+
+        public ConnectorBuilder setMaxChunkSize(int maxChunkSize) {
+            this.maxChunkSize = maxChunkSize;
+            return this;
+        }
+
+        public ConnectorBuilder setValidateHeaders(boolean validateHeaders) {
+            this.validateHeaders = validateHeaders;
+            return this;
+        }
+
+        public ConnectorBuilder setIdleTimeout(long idleTimeout) {
+            this.idleTimeout = idleTimeout;
+            return this;
+        }
+
+        public ConnectorBuilder setHeaderReadTimeout(long headerReadTimeout) {
+            this.headerReadTimeout = headerReadTimeout;
+            return this;
+        }
+
+        public ConnectorBuilder setBodyReadTimeout(long bodyReadTimeout) {
+            this.bodyReadTimeout = bodyReadTimeout;
+            return this;
+        }
+
+        public ConnectorBuilder setWriteTimeout(long writeTimeout) {
+            this.writeTimeout = writeTimeout;
+            return this;
+        }
+
+        public ConnectorBuilder setStreamIdleTimeout(long streamIdleTimeout) {
+            this.streamIdleTimeout = streamIdleTimeout;
+            return this;
+        }
+
+        public ConnectorBuilder setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+            return this;
+        }
+
+        public ConnectorBuilder setMaxInflightRequests(int maxInflightRequests) {
+            this.maxInflightRequests = maxInflightRequests;
+            return this;
+        }
+
+        public ConnectorBuilder setSslProvider(SslProvider sslProvider) {
+            this.sslProvider = sslProvider;
+            return this;
+        }
+
+        public ConnectorBuilder setCiphers(String... ciphers) {
+            this.ciphers = Collections.unmodifiableList(Arrays.asList(ciphers.clone()));
+            return this;
+        }
+
+        public ConnectorBuilder setProtocols(String... protocols) {
+            this.protocols = Collections.unmodifiableList(Arrays.asList(protocols.clone()));
+            return this;
+        }
+
+        public ConnectorBuilder setSessionCacheSize(long sessionCacheSize) {
+            this.sessionCacheSize = sessionCacheSize;
+            return this;
+        }
+
+        public ConnectorBuilder setSessionTimeout(long sessionTimeout) {
+            this.sessionTimeout = sessionTimeout;
+            return this;
+        }
+
+        public ConnectorBuilder setTicketKeys(byte[] ticketKeys) {
+            this.ticketKeys = ticketKeys.clone();
+            return this;
+        }
+
+        public Connector build() {
+            if (sslProvider == SslProvider.OPENSSL && !protocols.isEmpty()) {
+                throw new IllegalArgumentException("ssl protocols are only supported by the JDK provider");
+            }
+            return new ImmutableConnector(this);
         }
 
     }
@@ -146,13 +518,91 @@ public final class ImmutableSettings implements Settings {
 
         private final String keyPassword;
 
-        private ImmutableConnector(ConnectorType type, String address, int port, File certificatePath, File keyPath, String keyPassword) {
-            this.type = type;
-            this.address = address;
-            this.port = port;
-            this.certificatePath = certificatePath;
-            this.keyPath = keyPath;
-            this.keyPassword = keyPassword;
+        private final boolean tcpCork;
+
+        private final int listeners;
+
+        private final boolean tcpNoDelay;
+
+        private final int soBacklog;
+
+        private final int receiveBufferSize;
+
+        private final int sendBufferSize;
+
+        private final int writeBufferHighWaterMark;
+
+        private final int writeBufferLowWaterMark;
+
+        private final Allocator allocator;
+
+        private final int maxInitialLineLength;
+
+        private final int maxHeaderSize;
+
+        private final int maxChunkSize;
+
+        private final boolean validateHeaders;
+
+        private final long idleTimeout;
+
+        private final long headerReadTimeout;
+
+        private final long bodyReadTimeout;
+
+        private final long writeTimeout;
+
+        private final long streamIdleTimeout;
+
+        private final int maxConnections;
+
+        private final int maxInflightRequests;
+
+        private final SslProvider sslProvider;
+
+        private final List<String> ciphers;
+
+        private final List<String> protocols;
+
+        private final long sessionCacheSize;
+
+        private final long sessionTimeout;
+
+        private final byte[] ticketKeys;
+
+        private ImmutableConnector(ConnectorBuilder builder) {
+            this.type = builder.type;
+            this.address = builder.address;
+            this.port = builder.port;
+            this.certificatePath = builder.certificatePath;
+            this.keyPath = builder.keyPath;
+            this.keyPassword = builder.keyPassword;
+            this.tcpCork = builder.tcpCork;
+            this.listeners = builder.listeners;
+            this.tcpNoDelay = builder.tcpNoDelay;
+            this.soBacklog = builder.soBacklog;
+            this.receiveBufferSize = builder.receiveBufferSize;
+            this.sendBufferSize = builder.sendBufferSize;
+            this.writeBufferHighWaterMark = builder.writeBufferHighWaterMark;
+            this.writeBufferLowWaterMark = builder.writeBufferLowWaterMark;
+            this.allocator = builder.allocator;
+            this.maxInitialLineLength = builder.maxInitialLineLength;
+            this.maxHeaderSize = builder.maxHeaderSize;
+            this.maxChunkSize = builder.maxChunkSize;
+            this.validateHeaders = builder.validateHeaders;
+            this.idleTimeout = builder.idleTimeout;
+            this.headerReadTimeout = builder.headerReadTimeout;
+            this.bodyReadTimeout = builder.bodyReadTimeout;
+            this.writeTimeout = builder.writeTimeout;
+            this.streamIdleTimeout = builder.streamIdleTimeout;
+            this.maxConnections = builder.maxConnections;
+            this.maxInflightRequests = builder.maxInflightRequests;
+            this.sslProvider = builder.sslProvider;
+            this.ciphers = builder.ciphers;
+            this.protocols = builder.protocols;
+            this.sessionCacheSize = builder.sessionCacheSize;
+            this.sessionTimeout = builder.sessionTimeout;
+            this.ticketKeys = builder.ticketKeys;
         }
 
         @Override
@@ -185,6 +635,136 @@ public final class ImmutableSettings implements Settings {
             return keyPassword;
         }
 
+        @Override
+        public boolean tcpCork() {
+            return tcpCork;
+        }
+
+        @Override
+        public int listeners() {
+            return listeners;
+        }
+
+        @Override
+        public boolean tcpNoDelay() {
+            return tcpNoDelay;
+        }
+
+        @Override
+        public int soBacklog() {
+            return soBacklog;
+        }
+
+        @Override
+        public int receiveBufferSize() {
+            return receiveBufferSize;
+        }
+
+        @Override
+        public int sendBufferSize() {
+            return sendBufferSize;
+        }
+
+        @Override
+        public int writeBufferHighWaterMark() {
+            return writeBufferHighWaterMark;
+        }
+
+        @Override
+        public int writeBufferLowWaterMark() {
+            return writeBufferLowWaterMark;
+        }
+
+        @Override
+        public Allocator allocator() {
+            return allocator;
+        }
+
+        @Override
+        public int maxInitialLineLength() {
+            return maxInitialLineLength;
+        }
+
+        @Override
+        public int maxHeaderSize() {
+            return maxHeaderSize;
+        }
+
+        @Override
+        public int maxChunkSize() {
+            return maxChunkSize;
+        }
+
+        @Override
+        public boolean validateHeaders() {
+            return validateHeaders;
+        }
+
+        @Override
+        public long idleTimeout() {
+            return idleTimeout;
+        }
+
+        @Override
+        public long headerReadTimeout() {
+            return headerReadTimeout;
+        }
+
+        @Override
+        public long bodyReadTimeout() {
+            return bodyReadTimeout;
+        }
+
+        @Override
+        public long writeTimeout() {
+            return writeTimeout;
+        }
+
+        @Override
+        public long streamIdleTimeout() {
+            return streamIdleTimeout;
+        }
+
+        @Override
+        public int maxConnections() {
+            return maxConnections;
+        }
+
+        @Override
+        public int maxInflightRequests() {
+            return maxInflightRequests;
+        }
+
+        @Override
+        public SslProvider sslProvider() {
+            return sslProvider;
+        }
+
+        @Override
+        public List<String> ciphers() {
+            return ciphers;
+        }
+
+        @Override
+        public List<String> protocols() {
+            return protocols;
+        }
+
+        @Override
+        public long sessionCacheSize() {
+            return sessionCacheSize;
+        }
+
+        @Override
+        public long sessionTimeout() {
+            return sessionTimeout;
+        }
+
+        @Override
+        public byte[] ticketKeys() {
+            return ticketKeys == null ? null : ticketKeys.clone();
+        }
+
     }
 
 }
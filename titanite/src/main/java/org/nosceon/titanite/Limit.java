@@ -0,0 +1,63 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nosceon.titanite;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Johan Siebens
+ */
+final class Limit {
+
+    private final int max; // 0 is unlimited
+
+    private final Limit parent;
+
+    private final AtomicInteger current = new AtomicInteger();
+
+    Limit(int max) {
+        this(max, null);
+    }
+
+    Limit(int max, Limit parent) {
+        this.max = max;
+        this.parent = parent;
+    }
+
+    boolean tryAcquire() {
+        if (current.incrementAndGet() > max && max > 0) {
+            current.decrementAndGet();
+            return false;
+        }
+        if (parent != null && !parent.tryAcquire()) {
+            current.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    void release() {
+        current.decrementAndGet();
+        if (parent != null) {
+            parent.release();
+        }
+    }
+
+    int current() {
+        return current.get();
+    }
+
+}
@@ -15,10 +15,8 @@
  */
 package org.nosceon.titanite;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.function.Function;
-
-import static java.util.stream.Collectors.toList;
 
 /**
  * @author Johan Siebens
@@ -27,39 +25,96 @@ public abstract class MultiParams extends SingleParams {
 
     public abstract List<String> getStrings(String name);
 
-    private <V> List<V> getAndTranslateValues(String name, String type, Function<String, V> f) {
-        return getStrings(name).stream().map(value -> {
-            try {
-                return f.apply(value);
-            }
-            catch (Exception e) {
-                throw translate(e, type, name, value);
-            }
-        }).collect(toList());
-    }
-
     public final List<Short> getShorts(String name) {
-        return getAndTranslateValues(name, "short", SHORT);
+        List<String> values = getStrings(name);
+        List<Short> result = new ArrayList<>(values.size());
+        for (String value : values) {
+            result.add(parseShort(name, value));
+        }
+        return result;
     }
 
     public final List<Integer> getInts(String name) {
-        return getAndTranslateValues(name, "int", INT);
+        List<String> values = getStrings(name);
+        List<Integer> result = new ArrayList<>(values.size());
+        for (String value : values) {
+            result.add(parseInt(name, value));
+        }
+        return result;
     }
 
     public final List<Long> getLongs(String name) {
-        return getAndTranslateValues(name, "long", LONG);
+        List<String> values = getStrings(name);
+        List<Long> result = new ArrayList<>(values.size());
+        for (String value : values) {
+            result.add(parseLong(name, value));
+        }
+        return result;
     }
 
     public final List<Float> getFloats(String name) {
-        return getAndTranslateValues(name, "float", FLOAT);
+        List<String> values = getStrings(name);
+        List<Float> result = new ArrayList<>(values.size());
+        for (String value : values) {
+            result.add(parseFloat(name, value));
+        }
+        return result;
     }
 
     public final List<Double> getDoubles(String name) {
-        return getAndTranslateValues(name, "double", DOUBLE);
+        List<String> values = getStrings(name);
+        List<Double> result = new ArrayList<>(values.size());
+        for (String value : values) {
+            result.add(parseDouble(name, value));
+        }
+        return result;
     }
 
     public final List<Boolean> getBooleans(String name) {
-        return getAndTranslateValues(name, "boolean", BOOLEAN);
+        List<String> values = getStrings(name);
+        List<Boolean> result = new ArrayList<>(values.size());
+        for (String value : values) {
+            result.add(parseBoolean(value));
+        }
+        return result;
+    }
+
+    // unboxed variants, empty arrays when the parameter is absent
+
+    public final int[] getIntArray(String name) {
+        List<String> values = getStrings(name);
+        int[] result = new int[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = parseInt(name, values.get(i));
+        }
+        return result;
+    }
+
+    public final long[] getLongArray(String name) {
+        List<String> values = getStrings(name);
+        long[] result = new long[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = parseLong(name, values.get(i));
+        }
+        return result;
+    }
+
+    public final double[] getDoubleArray(String name) {
+        List<String> values = getStrings(name);
+        double[] result = new double[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = parseDouble(name, values.get(i));
+        }
+        return result;
+    }
+
+    public final boolean[] getBooleanArray(String name) {
+        List<String> values = getStrings(name);
+        boolean[] result = new boolean[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = parseBoolean(values.get(i));
+        }
+        return result;
     }
 
 }
@@ -15,12 +15,14 @@
  */
 package org.nosceon.titanite;
 
-import java.util.*;
-import java.util.function.Function;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.regex.Pattern;
 
-import static java.util.Optional.ofNullable;
-
 /**
  * @author Johan Siebens
  */
@@ -28,21 +30,126 @@ final class ParameterizedPattern {
 
     private static final Pattern PARAM_NAME_PATTERN = Pattern.compile("[a-zA-Z][0-9a-zA-Z]*");
 
+    private static final Matcher NO_MATCH = new Matcher(false, Collections.emptyMap());
+
+    private static final Matcher EMPTY_MATCH = new Matcher(true, Collections.emptyMap());
+
     private final String pattern;
 
-    private final Function<String, Matcher> supplier;
+    private final Segment[] segments;
+
+    private final String[] names;
+
+    private final boolean[] numeric; // null without numeric constraints
 
     public ParameterizedPattern(String input) {
         this.pattern = input;
-        this.supplier = createMatcherSupplier(input);
+        this.segments = parse(input);
+
+        List<String> names = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (segment.kind != Kind.STATIC) {
+                names.add(segment.value);
+            }
+        }
+        this.names = names.toArray(new String[names.size()]);
+        this.numeric = numeric(segments);
     }
 
     public boolean matches(String path) {
-        return matcher(path).matches();
+        return match(path, null, null);
     }
 
     public Matcher matcher(String path) {
-        return supplier.apply(path);
+        if (names.length == 0) {
+            return match(path, null, null) ? EMPTY_MATCH : NO_MATCH;
+        }
+
+        int[] offsets = new int[names.length * 2];
+        long[] numbers = numeric != null ? new long[names.length] : null;
+        return match(path, offsets, numbers) ? new Matcher(true, new ArrayParams(path, names, offsets, numeric, numbers)) : NO_MATCH;
+    }
+
+    Segment[] segments() {
+        return segments.clone();
+    }
+
+    // the only path matched by a pattern without parameters, null otherwise
+    String staticPath() {
+        StringBuilder sb = new StringBuilder();
+        for (Segment segment : segments) {
+            if (segment.kind != Kind.STATIC) {
+                return null;
+            }
+            sb.append('/').append(segment.value);
+        }
+        return sb.toString();
+    }
+
+    // walks the path once, parameter values are recorded as start and end offsets into the path
+    private boolean match(String path, int[] offsets, long[] numbers) {
+        int length = path.length();
+
+        if (length > 0 && path.charAt(0) != '/') {
+            return false;
+        }
+
+        int pos = 1; // start of the next segment, length + 1 once the path is consumed
+        int p = 0;
+
+        for (Segment segment : segments) {
+            switch (segment.kind) {
+                case OPTIONAL_SPLAT:
+                    if (offsets != null) {
+                        offsets[p] = Math.min(pos, length);
+                        offsets[p + 1] = length;
+                    }
+                    return true;
+
+                case REQUIRED_SPLAT:
+                    if (pos >= length) {
+                        return false;
+                    }
+                    if (offsets != null) {
+                        offsets[p] = pos;
+                        offsets[p + 1] = length;
+                    }
+                    return true;
+
+                default:
+                    if (pos > length) {
+                        return false;
+                    }
+
+                    int end = path.indexOf('/', pos);
+                    if (end < 0) {
+                        end = length;
+                    }
+
+                    if (segment.kind == Kind.STATIC) {
+                        if (end - pos != segment.value.length() || !path.regionMatches(pos, segment.value, 0, end - pos)) {
+                            return false;
+                        }
+                    }
+                    else {
+                        if (end == pos) {
+                            return false;
+                        }
+                        if (segment.constraint != null && !segment.constraint.test(path, pos, end, numbers, p / 2)) {
+                            return false;
+                        }
+                        if (offsets != null) {
+                            offsets[p] = pos;
+                            offsets[p + 1] = end;
+                        }
+                        p += 2;
+                    }
+
+                    pos = end + 1;
+            }
+        }
+
+        return pos == length + 1;
     }
 
     @Override
@@ -69,19 +176,7 @@ final class ParameterizedPattern {
         return pattern;
     }
 
-    private static Function<String, Matcher> createMatcherSupplier(String input) {
-        Data p = parse(input);
-
-        if (p.parameters.isEmpty()) {
-            return s -> new Equals(p.pattern, s);
-        }
-        else {
-            Pattern compiledPattern = Pattern.compile(p.pattern);
-            return s -> new Default(compiledPattern.matcher(s), p.parameters);
-        }
-    }
-
-    private static Data parse(String input) {
+    private static Segment[] parse(String input) {
         String p = input;
 
         if (p.startsWith("/")) {
@@ -89,119 +184,119 @@ final class ParameterizedPattern {
         }
 
         Set<String> groups = new HashSet<>();
-        Iterator<String> segments = Arrays.asList(p.split("/")).iterator();
-        StringBuilder sb = new StringBuilder();
+        String[] parts = p.split("/");
+        Segment[] segments = new Segment[parts.length];
 
-        while (segments.hasNext()) {
-            String n = segments.next();
+        for (int i = 0; i < parts.length; i++) {
+            String n = parts[i];
+            boolean last = i == parts.length - 1;
 
             if (n.startsWith(":")) {
-                String g = validateName(n.substring(1));
-                if (!groups.add(g)) {
-                    throw new IllegalArgumentException("Cannot use identifier '" + g + "' more than once in pattern string");
+                int constraint = n.indexOf('<');
+                if (constraint > 0 && n.endsWith(">")) {
+                    // e.g. :id<int>, the constraint applies to a single segment and cannot contain a '/'
+                    segments[i] = new Segment(Kind.PARAM, name(groups, n.substring(0, constraint)), Constraint.of(n.substring(constraint + 1, n.length() - 1)));
+                }
+                else {
+                    segments[i] = new Segment(Kind.PARAM, name(groups, n));
                 }
-                sb.append('/').append("(?<").append(g).append(">[^\\/]+)");
             }
             else if (n.startsWith("*")) {
-                if (segments.hasNext()) {
+                if (!last) {
                     throw new IllegalArgumentException("Dynamic part over more than one segment should be placed at the end");
                 }
-                String g = validateName(n.substring(1));
-                if (!groups.add(g)) {
-                    throw new IllegalArgumentException("Cannot use identifier '" + g + "' more than once in pattern string");
-                }
-                sb.append("(\\/(?<").append(g).append(">.*))?");
+                segments[i] = new Segment(Kind.OPTIONAL_SPLAT, name(groups, n));
             }
             else if (n.startsWith("+")) {
-                if (segments.hasNext()) {
+                if (!last) {
                     throw new IllegalArgumentException("Dynamic part over more than one segment should be placed at the end");
                 }
-                String g = validateName(n.substring(1));
-                if (!groups.add(g)) {
-                    throw new IllegalArgumentException("Cannot use identifier '" + g + "' more than once in pattern string");
-                }
-                sb.append('/').append("(?<").append(g).append(">.+)");
+                segments[i] = new Segment(Kind.REQUIRED_SPLAT, name(groups, n));
             }
             else {
-                sb.append('/').append(n);
+                segments[i] = new Segment(Kind.STATIC, n);
             }
         }
 
-        return new Data(sb.toString(), groups);
+        return segments;
     }
 
-    private static String validateName(String n) {
-        if (!PARAM_NAME_PATTERN.matcher(n).matches()) {
-            throw new IllegalArgumentException("Invalid identifier '" + n + "', it does not match [a-zA-Z][0-9a-zA-Z]*");
+    static boolean[] numeric(Segment[] segments) {
+        List<Boolean> numeric = new ArrayList<>();
+        boolean any = false;
+        for (Segment segment : segments) {
+            if (segment.kind != Kind.STATIC) {
+                boolean n = segment.constraint != null && segment.constraint.isNumeric();
+                numeric.add(n);
+                any |= n;
+            }
         }
-        return n;
+        if (!any) {
+            return null;
+        }
+        boolean[] result = new boolean[numeric.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = numeric.get(i);
+        }
+        return result;
     }
 
-    private static class Data {
-
-        private final String pattern;
-
-        private final Set<String> parameters;
-
-        private Data(String pattern, Set<String> parameters) {
-            this.pattern = pattern;
-            this.parameters = parameters;
+    private static String name(Set<String> groups, String n) {
+        String g = validateName(n.substring(1));
+        if (!groups.add(g)) {
+            throw new IllegalArgumentException("Cannot use identifier '" + g + "' more than once in pattern string");
         }
-
+        return g;
     }
 
-    static interface Matcher {
-
-        boolean matches();
-
-        Map<String, String> parameters();
+    private static String validateName(String n) {
+        if (!PARAM_NAME_PATTERN.matcher(n).matches()) {
+            throw new IllegalArgumentException("Invalid identifier '" + n + "', it does not match [a-zA-Z][0-9a-zA-Z]*");
+        }
+        return n;
+    }
 
+    enum Kind {
+        STATIC, PARAM, OPTIONAL_SPLAT, REQUIRED_SPLAT
     }
 
-    private static class Default implements Matcher {
+    static final class Segment {
 
-        private final boolean matches;
+        final Kind kind;
 
-        private Map<String, String> parameters = new LinkedHashMap<>();
+        final String value; // the literal of a static segment, the parameter name otherwise
 
-        public Default(java.util.regex.Matcher matcher, Collection<String> parameters) {
-            this.matches = matcher.matches();
-            if (this.matches()) {
-                for (String name : parameters) {
-                    this.parameters.put(name, ofNullable(matcher.group(name)).orElse(""));
-                }
-            }
-        }
+        final Constraint constraint;
 
-        public boolean matches() {
-            return matches;
+        private Segment(Kind kind, String value) {
+            this(kind, value, null);
         }
 
-        public Map<String, String> parameters() {
-            return parameters;
+        private Segment(Kind kind, String value, Constraint constraint) {
+            this.kind = kind;
+            this.value = value;
+            this.constraint = constraint;
         }
 
     }
 
-    private static class Equals implements Matcher {
+    static final class Matcher {
 
-        private final String command;
+        private final boolean matches;
 
-        private final String value;
+        private final Map<String, String> parameters;
 
-        public Equals(String value, String command) {
-            this.value = value;
-            this.command = command;
+        private Matcher(boolean matches, Map<String, String> parameters) {
+            this.matches = matches;
+            this.parameters = parameters;
         }
 
-        @Override
         public boolean matches() {
-            return value.equals(command);
+            return matches;
         }
 
-        @Override
         public Map<String, String> parameters() {
-            return Collections.emptyMap();
+            return parameters;
         }
 
     }
@@ -33,6 +33,10 @@ public final class PathParams extends SingleParams {
         this.values = values;
     }
 
+    void reset(Map<String, String> values) {
+        this.values = values;
+    }
+
     @Override
     public String getString(String name) {
         return values.get(name);
@@ -43,6 +47,25 @@ public final class PathParams extends SingleParams {
         return unmodifiableSet(values.keySet());
     }
 
+    @Override
+    boolean hasNumber(String name, long min, long max) {
+        if (values instanceof ArrayParams) {
+            ArrayParams params = (ArrayParams) values;
+            int index = params.indexOf(name);
+            if (params.isNumber(index)) {
+                long number = params.number(index);
+                return number >= min && number <= max;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    long getNumber(String name) {
+        ArrayParams params = (ArrayParams) values;
+        return params.number(params.indexOf(name));
+    }
+
     @Override
     protected IllegalArgumentException translate(Exception e, String type, String name, String value) {
         return new InvalidPathParamException(e, type, name, value);
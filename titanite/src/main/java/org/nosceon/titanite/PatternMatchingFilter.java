@@ -16,17 +16,9 @@
 package org.nosceon.titanite;
 
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.concurrent.CompletionStage;
 import java.util.function.BiFunction;
 import java.util.function.Function;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-import static java.util.Optional.ofNullable;
-import static java.util.stream.Collectors.toList;
 
 /**
  * <p>Part of this mapping code has been kindly borrowed from <a href="http://ant.apache.org/">Apache Ant.</a></p>
@@ -35,9 +27,11 @@ import static java.util.stream.Collectors.toList;
  */
 public final class PatternMatchingFilter implements Filter {
 
-    private final List<PathMatcher> includes = new LinkedList<>();
+    private static final PathMatcher[] NONE = new PathMatcher[0];
+
+    private PathMatcher[] includes = NONE;
 
-    private final List<PathMatcher> excludes = new LinkedList<>();
+    private PathMatcher[] excludes = NONE;
 
     private final BiFunction<Request, Function<Request, CompletionStage<Response>>, CompletionStage<Response>> filter;
 
@@ -47,9 +41,7 @@ public final class PatternMatchingFilter implements Filter {
 
     @Override
     public CompletionStage<Response> apply(Request request, Function<Request, CompletionStage<Response>> handler) {
-        boolean excluded = isExcluded(request.path());
-        boolean included = isIncluded(request.path());
-        if (!excluded && included) {
+        if (matches(request.path())) {
             return filter.apply(request, handler);
         }
         else {
@@ -58,207 +50,237 @@ public final class PatternMatchingFilter implements Filter {
     }
 
     public PatternMatchingFilter include(String pattern, String... patterns) {
-        this.includes.add(new PathMatcher(pattern));
-        this.includes.addAll(ofNullable(patterns).map((String[] ps) -> Arrays.stream(ps).map(PathMatcher::new).collect(toList())).orElseGet(Collections::emptyList));
+        this.includes = add(includes, pattern, patterns);
         return this;
     }
 
     public PatternMatchingFilter exclude(String pattern, String... patterns) {
-        this.excludes.add(new PathMatcher(pattern));
-        this.excludes.addAll(ofNullable(patterns).map((String[] ps) -> Arrays.stream(ps).map(PathMatcher::new).collect(toList())).orElseGet(Collections::emptyList));
+        this.excludes = add(excludes, pattern, patterns);
         return this;
     }
 
-    private boolean isIncluded(String path) {
-        return includes.isEmpty() || isMatch(includes, path);
+    BiFunction<Request, Function<Request, CompletionStage<Response>>, CompletionStage<Response>> filter() {
+        return filter;
+    }
+
+    boolean matchesAll() {
+        return includes.length == 0 && excludes.length == 0;
+    }
+
+    boolean matches(String path) {
+        return !isMatch(excludes, path) && (includes.length == 0 || isMatch(includes, path));
     }
 
-    private boolean isExcluded(String path) {
-        return !excludes.isEmpty() && isMatch(excludes, path);
+    private static PathMatcher[] add(PathMatcher[] matchers, String pattern, String... patterns) {
+        int extra = patterns == null ? 0 : patterns.length;
+        PathMatcher[] result = Arrays.copyOf(matchers, matchers.length + 1 + extra);
+        result[matchers.length] = new PathMatcher(pattern);
+        for (int i = 0; i < extra; i++) {
+            result[matchers.length + 1 + i] = new PathMatcher(patterns[i]);
+        }
+        return result;
     }
 
-    private boolean isMatch(List<PathMatcher> matchers, String path) {
-        return matchers.parallelStream().filter(p -> p.match(path)).findAny().isPresent();
+    private static boolean isMatch(PathMatcher[] matchers, String path) {
+        for (PathMatcher matcher : matchers) {
+            if (matcher.match(path)) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    private static class PathMatcher {
+    // compiled once, matching works on offsets into the path and allocates nothing
+    private static final class PathMatcher {
 
-        public static final String PATH_SEPARATOR = "/";
+        private static final String PATH_SEPARATOR = "/";
 
         private final String pattern;
 
-        public PathMatcher(String pattern) {
+        private final boolean absolute;
+
+        private final boolean isPattern;
+
+        private final boolean hasDoubleStar;
+
+        private final boolean trailingSeparator;
+
+        private final String prefix; // literal segments before the first wildcard, any match starts with it
+
+        private final Segment[] segments;
+
+        PathMatcher(String pattern) {
             this.pattern = pattern;
-        }
+            this.absolute = pattern.startsWith(PATH_SEPARATOR);
+            this.isPattern = pattern.indexOf('*') != -1 || pattern.indexOf('?') != -1;
+            this.trailingSeparator = pattern.endsWith(PATH_SEPARATOR);
+
+            // split as String.split does, dropping trailing empty segments
+            String[] dirs = pattern.split(PATH_SEPARATOR);
+            this.segments = new Segment[dirs.length];
+            boolean doubleStar = false;
+            for (int i = 0; i < dirs.length; i++) {
+                segments[i] = new Segment(dirs[i]);
+                doubleStar |= segments[i].doubleStar;
+            }
+            this.hasDoubleStar = doubleStar;
 
-        public boolean isPattern(String str) {
-            return (str.indexOf('*') != -1 || str.indexOf('?') != -1);
+            int wildcard = firstWildcard(pattern);
+            int separator = wildcard < 0 ? -1 : pattern.lastIndexOf('/', wildcard);
+            this.prefix = separator <= 0 ? "" : pattern.substring(0, separator);
         }
 
-        public boolean match(String path) {
-            if (path.startsWith(PATH_SEPARATOR) != pattern.startsWith(PATH_SEPARATOR)) {
+        boolean match(String path) {
+            if (path.startsWith(PATH_SEPARATOR) != absolute) {
                 return false;
             }
 
-            if (!isPattern(pattern)) {
+            if (!isPattern) {
                 return pattern.equals(path);
             }
-            else {
 
-                String[] pattDirs = pattern.split(PATH_SEPARATOR);
-                String[] pathDirs = path.split(PATH_SEPARATOR);
+            if (!path.startsWith(prefix)) {
+                return false;
+            }
 
-                int pattIdxStart = 0;
-                int pattIdxEnd = pattDirs.length - 1;
-                int pathIdxStart = 0;
-                int pathIdxEnd = pathDirs.length - 1;
+            // the path segments are the regions between separators up to the last non separator character
+            int end = path.length();
+            while (end > 0 && path.charAt(end - 1) == '/') {
+                end--;
+            }
+            int start = end == 0 && !path.isEmpty() ? 1 : 0; // a path of only separators has no segments
 
-                // Match all elements up to the first **
-                while (pattIdxStart <= pattIdxEnd && pathIdxStart <= pathIdxEnd) {
-                    String pattDir = pattDirs[pattIdxStart];
-                    if ("**".equals(pattDir)) {
-                        break;
-                    }
-                    if (!matchStrings(pattDir, pathDirs[pathIdxStart])) {
-                        return false;
-                    }
-                    pattIdxStart++;
-                    pathIdxStart++;
+            return hasDoubleStar ? matchGlob(0, path, start, end) : matchFixed(path, start, end);
+        }
+
+        // without '**' both must have the same segments, including the trailing separator
+        private boolean matchFixed(String path, int pos, int end) {
+            int i = 0;
+            for (; i < segments.length && pos <= end; i++) {
+                int next = next(path, pos, end);
+                if (!segments[i].match(path, pos, next)) {
+                    return false;
                 }
+                pos = next + 1;
+            }
+
+            if (pos <= end) {
+                return false; // path not exhausted
+            }
+
+            if (i == segments.length) {
+                return trailingSeparator == path.endsWith(PATH_SEPARATOR);
+            }
+
+            return i == segments.length - 1 && segments[i].singleStar && path.endsWith(PATH_SEPARATOR);
+        }
 
-                if (pathIdxStart > pathIdxEnd) {
-                    // Path is exhausted, only match if rest of pattern is * or **'s
-                    if (pattIdxStart > pattIdxEnd) {
-                        return (pattern.endsWith(PATH_SEPARATOR) ? path.endsWith(PATH_SEPARATOR) :
-                            !path.endsWith(PATH_SEPARATOR));
+        // '**' matches any number of segments, trailing separators are not significant
+        private boolean matchGlob(int i, String path, int pos, int end) {
+            for (; i < segments.length; i++) {
+                if (segments[i].doubleStar) {
+                    while (i + 1 < segments.length && segments[i + 1].doubleStar) {
+                        i++;
                     }
-                    if (pattIdxStart == pattIdxEnd && pattDirs[pattIdxStart].equals("*") && path.endsWith(PATH_SEPARATOR)) {
+                    if (i == segments.length - 1) {
                         return true;
                     }
-                    for (int i = pattIdxStart; i <= pattIdxEnd; i++) {
-                        if (!pattDirs[i].equals("**")) {
+                    for (int p = pos; ; p = next(path, p, end) + 1) {
+                        if (matchGlob(i + 1, path, p, end)) {
+                            return true;
+                        }
+                        if (p > end) {
                             return false;
                         }
                     }
-                    return true;
                 }
-                else if (pattIdxStart > pattIdxEnd) {
-                    // String not exhausted, but pattern is. Failure.
+
+                if (pos > end) {
                     return false;
                 }
 
-                // up to last '**'
-                while (pattIdxStart <= pattIdxEnd && pathIdxStart <= pathIdxEnd) {
-                    String pattDir = pattDirs[pattIdxEnd];
-                    if (pattDir.equals("**")) {
-                        break;
-                    }
-                    if (!matchStrings(pattDir, pathDirs[pathIdxEnd])) {
-                        return false;
-                    }
-                    pattIdxEnd--;
-                    pathIdxEnd--;
-                }
-                if (pathIdxStart > pathIdxEnd) {
-                    // String is exhausted
-                    for (int i = pattIdxStart; i <= pattIdxEnd; i++) {
-                        if (!pattDirs[i].equals("**")) {
-                            return false;
-                        }
-                    }
-                    return true;
+                int next = next(path, pos, end);
+                if (!segments[i].match(path, pos, next)) {
+                    return false;
                 }
+                pos = next + 1;
+            }
+            return pos > end;
+        }
 
-                while (pattIdxStart != pattIdxEnd && pathIdxStart <= pathIdxEnd) {
-                    int patIdxTmp = -1;
-                    for (int i = pattIdxStart + 1; i <= pattIdxEnd; i++) {
-                        if (pattDirs[i].equals("**")) {
-                            patIdxTmp = i;
-                            break;
-                        }
-                    }
-                    if (patIdxTmp == pattIdxStart + 1) {
-                        // '**/**' situation, so skip one
-                        pattIdxStart++;
-                        continue;
-                    }
-                    // Find the pattern between padIdxStart & padIdxTmp in path between
-                    // strIdxStart & strIdxEnd
-                    int patLength = (patIdxTmp - pattIdxStart - 1);
-                    int strLength = (pathIdxEnd - pathIdxStart + 1);
-                    int foundIdx = -1;
-
-                    strLoop:
-                    for (int i = 0; i <= strLength - patLength; i++) {
-                        for (int j = 0; j < patLength; j++) {
-                            String subPat = pattDirs[pattIdxStart + j + 1];
-                            String subStr = pathDirs[pathIdxStart + i + j];
-                            if (!matchStrings(subPat, subStr)) {
-                                continue strLoop;
-                            }
-                        }
-                        foundIdx = pathIdxStart + i;
-                        break;
-                    }
-
-                    if (foundIdx == -1) {
-                        return false;
-                    }
-
-                    pattIdxStart = patIdxTmp;
-                    pathIdxStart = foundIdx + patLength;
-                }
+        private static int next(String path, int pos, int end) {
+            int next = path.indexOf('/', pos);
+            return next < 0 || next > end ? end : next;
+        }
 
-                for (int i = pattIdxStart; i <= pattIdxEnd; i++) {
-                    if (!pattDirs[i].equals("**")) {
-                        return false;
-                    }
+        private static int firstWildcard(String pattern) {
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (c == '*' || c == '?') {
+                    return i;
                 }
-
-                return true;
             }
+            return -1;
         }
 
-        private boolean matchStrings(String pattern, String str) {
-            return new AntPathStringMatcher(pattern).matchStrings(str);
-        }
+    }
 
-        private static class AntPathStringMatcher {
+    private static final class Segment {
 
-            private static final Pattern GLOB_PATTERN = Pattern.compile("\\?|\\*");
+        private final String value;
 
-            private final Pattern pattern;
+        private final boolean doubleStar;
 
-            public AntPathStringMatcher(String pattern) {
-                StringBuilder patternBuilder = new StringBuilder();
-                Matcher m = GLOB_PATTERN.matcher(pattern);
-                int end = 0;
-                while (m.find()) {
-                    patternBuilder.append(quote(pattern, end, m.start()));
-                    String match = m.group();
-                    if ("?".equals(match)) {
-                        patternBuilder.append('.');
-                    }
-                    else if ("*".equals(match)) {
-                        patternBuilder.append(".*");
-                    }
-                    end = m.end();
-                }
-                patternBuilder.append(quote(pattern, end, pattern.length()));
-                this.pattern = Pattern.compile(patternBuilder.toString());
+        private final boolean singleStar;
+
+        private final boolean literal;
+
+        Segment(String value) {
+            this.value = value;
+            this.doubleStar = value.equals("**");
+            this.singleStar = value.equals("*");
+            this.literal = value.indexOf('*') == -1 && value.indexOf('?') == -1;
+        }
+
+        boolean match(String path, int start, int end) {
+            if (singleStar) {
+                return true;
+            }
+            if (literal) {
+                return end - start == value.length() && path.regionMatches(start, value, 0, end - start);
             }
+            return glob(path, start, end);
+        }
 
-            private String quote(String s, int start, int end) {
-                if (start == end) {
-                    return "";
+        // '?' matches one character and '*' any number of characters, backtracking to the last '*'
+        private boolean glob(String path, int start, int end) {
+            int p = 0;
+            int s = start;
+            int star = -1;
+            int mark = 0;
+
+            while (s < end) {
+                if (p < value.length() && (value.charAt(p) == '?' || value.charAt(p) == path.charAt(s))) {
+                    p++;
+                    s++;
+                }
+                else if (p < value.length() && value.charAt(p) == '*') {
+                    star = p++;
+                    mark = s;
+                }
+                else if (star != -1) {
+                    p = star + 1;
+                    s = ++mark;
+                }
+                else {
+                    return false;
                 }
-                return Pattern.quote(s.substring(start, end));
             }
 
-            public boolean matchStrings(String str) {
-                return this.pattern.matcher(str).matches();
+            while (p < value.length() && value.charAt(p) == '*') {
+                p++;
             }
-
+            return p == value.length();
         }
 
     }
@@ -15,6 +15,7 @@
  */
 package org.nosceon.titanite;
 
+import io.netty.handler.codec.http.QueryStringDecoder;
 import org.nosceon.titanite.exception.InvalidQueryParamException;
 
 import java.util.*;
@@ -26,16 +27,28 @@ import static java.util.Collections.unmodifiableSet;
  */
 public final class QueryParams extends MultiParams {
 
-    private Map<String, List<String>> values;
+    private QueryStringDecoder decoder;
+
+    private volatile Map<String, List<String>> values; // decoded on first access
 
     QueryParams(Map<String, List<String>> values) {
+        this.decoder = null;
         this.values = values;
     }
 
+    QueryParams(QueryStringDecoder decoder) {
+        this.decoder = decoder;
+    }
+
+    void reset(QueryStringDecoder decoder) {
+        this.decoder = decoder;
+        this.values = null;
+    }
+
     @Override
     public String getString(String name) {
         return
-            Optional.ofNullable(values.get(name))
+            Optional.ofNullable(values().get(name))
                 .filter(l -> !l.isEmpty())
                 .map((l) -> l.get(0))
                 .orElse(null);
@@ -44,12 +57,21 @@ public final class QueryParams extends MultiParams {
 
     @Override
     public List<String> getStrings(String name) {
-        return Optional.ofNullable(values.get(name)).orElse(Collections.<String>emptyList());
+        return Optional.ofNullable(values().get(name)).orElse(Collections.<String>emptyList());
     }
 
     @Override
     public Set<String> keys() {
-        return unmodifiableSet(values.keySet());
+        return unmodifiableSet(values().keySet());
+    }
+
+    private Map<String, List<String>> values() {
+        Map<String, List<String>> result = values;
+        if (result == null) {
+            result = decoder.parameters();
+            values = result;
+        }
+        return result;
     }
 
     @Override
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nosceon.titanite;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import static io.netty.handler.codec.http.HttpHeaders.setContentLength;
+import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+
+/**
+ * @author Johan Siebens
+ */
+public final class RawExchange {
+
+    private static final AtomicIntegerFieldUpdater<RawExchange> RESPONDED = AtomicIntegerFieldUpdater.newUpdater(RawExchange.class, "responded");
+
+    private final HttpServerHandler handler;
+
+    private final ChannelHandlerContext ctx;
+
+    private final int sequence;
+
+    private final HttpRequest request;
+
+    private final String path;
+
+    private final Map<String, String> pathParams;
+
+    private final boolean secure;
+
+    private volatile int responded;
+
+    RawExchange(HttpServerHandler handler, ChannelHandlerContext ctx, int sequence, HttpRequest request, String path, Map<String, String> pathParams, boolean secure) {
+        this.handler = handler;
+        this.ctx = ctx;
+        this.sequence = sequence;
+        this.request = request;
+        this.path = path;
+        this.pathParams = pathParams;
+        this.secure = secure;
+    }
+
+    public HttpRequest request() {
+        return request;
+    }
+
+    public String path() {
+        return path;
+    }
+
+    public String pathParam(String name) {
+        return pathParams.get(name);
+    }
+
+    public boolean isSecure() {
+        return secure;
+    }
+
+    public ChannelHandlerContext context() {
+        return ctx;
+    }
+
+    public void respond(int status) {
+        respond(new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.valueOf(status), Unpooled.EMPTY_BUFFER));
+    }
+
+    public void respond(int status, String contentType, String body) {
+        respond(status, contentType, Unpooled.wrappedBuffer(body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public void respond(int status, String contentType, byte[] body) {
+        respond(status, contentType, Unpooled.wrappedBuffer(body));
+    }
+
+    public void respond(int status, String contentType, ByteBuf body) {
+        int length = body.readableBytes();
+        FullHttpResponse response;
+        if (request.getMethod().equals(HttpMethod.HEAD)) {
+            body.release();
+            response = new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.valueOf(status), Unpooled.EMPTY_BUFFER);
+        }
+        else {
+            response = new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.valueOf(status), body);
+        }
+        response.headers().set(HeaderNames.CONTENT_TYPE, contentType);
+        setContentLength(response, length);
+        respond(response);
+    }
+
+    // may be called from any thread, but only once; the connection's keep-alive state is applied to the response
+    public void respond(FullHttpResponse response) {
+        if (!RESPONDED.compareAndSet(this, 0, 1)) {
+            response.release();
+            throw new IllegalStateException("response already sent");
+        }
+        handler.respond(ctx, sequence, request, response);
+    }
+
+    boolean isResponded() {
+        return responded != 0;
+    }
+
+}
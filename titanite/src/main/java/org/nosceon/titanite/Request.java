@@ -15,12 +15,16 @@
  */
 package org.nosceon.titanite;
 
-import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.util.Recycler;
 import org.nosceon.titanite.body.Body;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 import static java.util.Collections.singletonList;
 import static java.util.Optional.ofNullable;
@@ -32,74 +36,130 @@ import static org.nosceon.titanite.MediaType.bestCandidate;
  */
 public final class Request {
 
-    private final Method method;
+    private static final Recycler<State> RECYCLER = new Recycler<State>() {
 
-    private final String path;
+        @Override
+        protected State newObject(Handle handle) {
+            return new State(handle);
+        }
 
-    private final HeaderParams headers;
+    };
 
-    private final CookieParams cookies;
+    // a pooled state is handed out again once released, a request keeps the generation it was dispatched with
+    // so that using it afterwards always fails instead of reading the values of another request
 
-    private final QueryParams queryParams;
+    private final State state;
 
-    private final PathParams pathParams;
+    private final int generation;
 
-    private final Body body;
+    // parsed from the headers on first access
 
-    private final Attributes attributes;
+    private MediaType contentType;
 
-    private final boolean secure;
+    private List<MediaType> acceptableTypes;
+
+    private List<AcceptableLanguage> acceptableLanguages;
+
+    private String baseUri;
 
     Request(boolean secure, Method method, String path, HeaderParams headers, CookieParams cookies, PathParams pathParams, QueryParams queryParams, Body body) {
-        this.secure = secure;
-        this.method = method;
-        this.path = path;
-        this.headers = headers;
-        this.cookies = cookies;
-        this.queryParams = queryParams;
-        this.pathParams = pathParams;
-        this.body = body;
-        this.attributes = new Attributes();
+        this(new State(secure, method, path, headers, cookies, pathParams, queryParams, body), 0);
+    }
+
+    private Request(State state, int generation) {
+        this.state = state;
+        this.generation = generation;
+    }
+
+    static Request pooled(boolean secure, Method method, String path, HttpRequest request, Map<String, String> pathParams, QueryStringDecoder qsd, Body body) {
+        State state = RECYCLER.get();
+        state.secure = secure;
+        state.method = method;
+        state.path = path;
+        state.headers.reset(request);
+        state.cookies.reset(request.headers().get(HeaderNames.COOKIE));
+        state.pathParams.reset(pathParams);
+        state.queryParams.reset(qsd);
+        state.body = body;
+        return new Request(state, state.generation);
+    }
+
+    // called once the response is written, a pooled state is cleared and handed out again
+    void release() {
+        State state = this.state;
+        if (state.handle == null || state.generation != generation) {
+            return;
+        }
+        state.generation = generation + 1;
+        state.method = null;
+        state.path = null;
+        state.body = null;
+        state.headers.reset(null);
+        state.cookies.reset(null);
+        state.pathParams.reset(null);
+        state.queryParams.reset(null);
+        state.attributes.clear();
+        RECYCLER.recycle(state, state.handle);
+    }
+
+    private State state() {
+        State state = this.state;
+        if (state.handle != null && state.generation != generation) {
+            IllegalStateException e = new IllegalStateException("request used after its response was written, keep the values needed instead of the request");
+            Titanite.LOG.error("request leaked by a handler", e);
+            throw e;
+        }
+        return state;
     }
 
     public Method method() {
-        return method;
+        return state().method;
     }
 
     public String path() {
-        return path;
+        return state().path;
     }
 
     public HeaderParams headers() {
-        return headers;
+        return state().headers;
     }
 
     public CookieParams cookies() {
-        return cookies;
+        return state().cookies;
     }
 
     public QueryParams queryParams() {
-        return queryParams;
+        return state().queryParams;
     }
 
     public PathParams pathParams() {
-        return pathParams;
+        return state().pathParams;
     }
 
     public Body body() {
-        return body;
+        return state().body;
     }
 
     public Attributes attributes() {
-        return attributes;
+        return state().attributes;
     }
 
     public MediaType contentType() {
-        return ofNullable(headers.getString(HttpHeaders.Names.CONTENT_TYPE)).map(MediaType::valueOf).orElse(null);
+        MediaType result = contentType;
+        if (result == null) {
+            result = ofNullable(headers().get(HeaderNames.CONTENT_TYPE)).map(v -> MediaType.valueOf(v.toString())).orElse(null);
+            contentType = result;
+        }
+        return result;
     }
 
     public List<MediaType> acceptableTypes() {
-        return ofNullable(headers.getString(HttpHeaders.Names.ACCEPT)).map(MediaType::valuesOf).orElse(singletonList(ANY));
+        List<MediaType> result = acceptableTypes;
+        if (result == null) {
+            result = ofNullable(headers().get(HeaderNames.ACCEPT)).map(v -> MediaType.valuesOf(v.toString())).map(Collections::unmodifiableList).orElse(singletonList(ANY));
+            acceptableTypes = result;
+        }
+        return result;
     }
 
     public MediaType acceptableType(Collection<MediaType> candidates) {
@@ -111,7 +171,12 @@ public final class Request {
     }
 
     public List<AcceptableLanguage> acceptableLanguages() {
-        return ofNullable(headers.getString(HttpHeaders.Names.ACCEPT_LANGUAGE)).map(AcceptableLanguage::valuesOf).orElse(singletonList(AcceptableLanguage.ANY));
+        List<AcceptableLanguage> result = acceptableLanguages;
+        if (result == null) {
+            result = ofNullable(headers().get(HeaderNames.ACCEPT_LANGUAGE)).map(v -> AcceptableLanguage.valuesOf(v.toString())).map(Collections::unmodifiableList).orElse(singletonList(AcceptableLanguage.ANY));
+            acceptableLanguages = result;
+        }
+        return result;
     }
 
     public Locale acceptableLanguage(Collection<Locale> candidates) {
@@ -123,20 +188,71 @@ public final class Request {
     }
 
     public String baseUri() {
-        return protocol() + "://" + headers.getString(HttpHeaders.Names.HOST);
+        String result = baseUri;
+        if (result == null) {
+            result = protocol() + "://" + headers().get(HeaderNames.HOST);
+            baseUri = result;
+        }
+        return result;
     }
 
     public String protocol() {
-        return secure ? "https" : "http";
+        return state().secure ? "https" : "http";
     }
 
     public Request withAttribute(String key, Object value) {
-        this.attributes.set(key, value);
+        attributes().set(key, value);
         return this;
     }
 
     boolean isSecure() {
-        return secure;
+        return state().secure;
+    }
+
+    private static final class State {
+
+        private final Recycler.Handle handle; // set when pooled
+
+        private volatile int generation;
+
+        private boolean secure;
+
+        private Method method;
+
+        private String path;
+
+        private final HeaderParams headers;
+
+        private final CookieParams cookies;
+
+        private final QueryParams queryParams;
+
+        private final PathParams pathParams;
+
+        private Body body;
+
+        private final Attributes attributes = new Attributes();
+
+        State(boolean secure, Method method, String path, HeaderParams headers, CookieParams cookies, PathParams pathParams, QueryParams queryParams, Body body) {
+            this.handle = null;
+            this.secure = secure;
+            this.method = method;
+            this.path = path;
+            this.headers = headers;
+            this.cookies = cookies;
+            this.queryParams = queryParams;
+            this.pathParams = pathParams;
+            this.body = body;
+        }
+
+        State(Recycler.Handle handle) {
+            this.handle = handle;
+            this.headers = new HeaderParams(null);
+            this.cookies = new CookieParams((String) null);
+            this.queryParams = new QueryParams((QueryStringDecoder) null);
+            this.pathParams = new PathParams(null);
+        }
+
     }
 
 }
@@ -28,8 +28,8 @@ import java.util.Locale;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 
-import static io.netty.handler.codec.http.HttpHeaders.Names.*;
 import static io.netty.handler.codec.http.HttpHeaders.*;
+import static org.nosceon.titanite.HeaderNames.*;
 import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
 import static io.netty.util.CharsetUtil.UTF_8;
 import static java.util.concurrent.CompletableFuture.completedFuture;
@@ -142,7 +142,7 @@ public final class Response {
         return status.code();
     }
 
-    public Response header(String name, Object value) {
+    public Response header(CharSequence name, Object value) {
         headers.add(name, value);
         return this;
     }
@@ -226,13 +226,18 @@ public final class Response {
         return completedFuture(this);
     }
 
-    void apply(HttpRequest rawRequest, WebsocketHandler websocketHandler, boolean keepAlive, Request request, ChannelHandlerContext ctx) {
-        body.apply(rawRequest, websocketHandler, request, ctx);
+    boolean isWebSocket() {
+        return body instanceof WebSocketBody;
+    }
+
+    // completes when the whole response is written, so a pipelined response can follow
+    CompletionStage<Void> apply(HttpRequest rawRequest, WebsocketHandler websocketHandler, boolean keepAlive, Request request, ChannelHandlerContext ctx) {
+        return body.apply(rawRequest, websocketHandler, request, ctx);
     }
 
     private static interface Body {
 
-        void apply(HttpRequest rawRequest, WebsocketHandler websocketHandler, Request request, ChannelHandlerContext ctx);
+        CompletionStage<Void> apply(HttpRequest rawRequest, WebsocketHandler websocketHandler, Request request, ChannelHandlerContext ctx);
 
     }
 
@@ -246,11 +251,12 @@ public final class Response {
     private class NoBody implements Body {
 
         @Override
-        public void apply(HttpRequest rawRequest, WebsocketHandler websocketHandler, Request request, ChannelHandlerContext ctx) {
+        public CompletionStage<Void> apply(HttpRequest rawRequest, WebsocketHandler websocketHandler, Request request, ChannelHandlerContext ctx) {
             FullHttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, status, Unpooled.EMPTY_BUFFER);
             response.headers().add(headers);
             setKeepAlive(response, isKeepAlive(rawRequest));
-            writeFlushAndClose(ctx, response, false);
+            writeFlushAndClose(ctx, response, isKeepAlive(rawRequest));
+            return completedFuture(null);
         }
 
     }
@@ -264,14 +270,15 @@ public final class Response {
         }
 
         @Override
-        public void apply(HttpRequest rawRequest, WebsocketHandler websocketHandler, Request request, ChannelHandlerContext ctx) {
+        public CompletionStage<Void> apply(HttpRequest rawRequest, WebsocketHandler websocketHandler, Request request, ChannelHandlerContext ctx) {
             boolean isHeadRequest = request.method().equals(Method.HEAD);
 
             FullHttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, status, isHeadRequest ? Unpooled.EMPTY_BUFFER : content);
             response.headers().add(headers);
             setContentLength(response, content.readableBytes());
             setKeepAlive(response, isKeepAlive(rawRequest));
-            writeFlushAndClose(ctx, response, false);
+            writeFlushAndClose(ctx, response, isKeepAlive(rawRequest));
+            return completedFuture(null);
         }
 
     }
@@ -285,8 +292,9 @@ public final class Response {
         }
 
         @Override
-        public void apply(HttpRequest rawRequest, WebsocketHandler websocketHandler, Request request, ChannelHandlerContext ctx) {
+        public CompletionStage<Void> apply(HttpRequest rawRequest, WebsocketHandler websocketHandler, Request request, ChannelHandlerContext ctx) {
             websocketHandler.handshake(rawRequest, request, ctx, webSocket);
+            return completedFuture(null);
         }
 
     }
@@ -300,7 +308,7 @@ public final class Response {
         }
 
         @Override
-        public void apply(HttpRequest rawRequest, WebsocketHandler websocketHandler, Request request, ChannelHandlerContext ctx) {
+        public CompletionStage<Void> apply(HttpRequest rawRequest, WebsocketHandler websocketHandler, Request request, ChannelHandlerContext ctx) {
             HttpResponse response = new DefaultHttpResponse(HTTP_1_1, status);
             response.headers().add(headers);
             setTransferEncodingChunked(response);
@@ -312,9 +320,11 @@ public final class Response {
                 ctx.pipeline().addLast(channel);
 
                 chunkedOutput.onReady(channel);
+                return channel.completed;
             }
             else {
                 writeFlushAndClose(ctx, LastHttpContent.EMPTY_LAST_CONTENT, isKeepAlive(rawRequest));
+                return completedFuture(null);
             }
         }
 
@@ -328,15 +338,19 @@ public final class Response {
 
         private final CompletableFuture<Void> disconnect;
 
+        private final CompletableFuture<Void> completed;
+
         private ChunksChannel(boolean keepAlive, ChannelHandlerContext ctx) {
             this.keepAlive = keepAlive;
             this.ctx = ctx;
             this.disconnect = new CompletableFuture<>();
+            this.completed = new CompletableFuture<>();
         }
 
         @Override
         public void channelInactive(ChannelHandlerContext ctx) throws Exception {
             disconnect.complete(null);
+            completed.complete(null);
         }
 
         @Override
@@ -348,6 +362,7 @@ public final class Response {
         public void close() {
             ctx.pipeline().remove(this);
             writeFlushAndClose(ctx, LastHttpContent.EMPTY_LAST_CONTENT, keepAlive);
+            completed.complete(null);
         }
 
         @Override
@@ -366,7 +381,7 @@ public final class Response {
         }
 
         @Override
-        public void apply(HttpRequest rawRequest, WebsocketHandler websocketHandler, Request request, ChannelHandlerContext ctx) {
+        public CompletionStage<Void> apply(HttpRequest rawRequest, WebsocketHandler websocketHandler, Request request, ChannelHandlerContext ctx) {
             HttpResponse response = new DefaultHttpResponse(HTTP_1_1, status);
             response.headers().add(headers);
             setTransferEncodingChunked(response);
@@ -382,6 +397,7 @@ public final class Response {
             }
 
             writeFlushAndClose(ctx, LastHttpContent.EMPTY_LAST_CONTENT, isKeepAlive(rawRequest));
+            return completedFuture(null);
         }
 
     }
@@ -395,7 +411,7 @@ public final class Response {
         }
 
         @Override
-        public void apply(HttpRequest rawRequest, WebsocketHandler websocketHandler, Request request, ChannelHandlerContext ctx) {
+        public CompletionStage<Void> apply(HttpRequest rawRequest, WebsocketHandler websocketHandler, Request request, ChannelHandlerContext ctx) {
             HttpResponse response = new DefaultHttpResponse(HTTP_1_1, status);
             response.headers().add(headers);
 
@@ -423,10 +439,11 @@ public final class Response {
                 }
 
                 writeFlushAndClose(ctx, LastHttpContent.EMPTY_LAST_CONTENT, isKeepAlive(rawRequest));
+                return completedFuture(null);
             }
             catch (IOException e) {
                 Titanite.LOG.error("error writing file to response", e);
-                internalServerError().apply(rawRequest, websocketHandler, isKeepAlive(rawRequest), request, ctx);
+                return internalServerError().apply(rawRequest, websocketHandler, isKeepAlive(rawRequest), request, ctx);
             }
         }
 
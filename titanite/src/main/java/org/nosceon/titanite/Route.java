@@ -34,15 +34,28 @@ final class Route {
 
     private final Function<Request, CompletionStage<Response>> handler;
 
+    private final RawHandler raw;
+
+    Route(Method method, String pattern, RawHandler raw) {
+        this(method, new ParameterizedPattern(pattern), null, req -> {
+            throw new IllegalStateException("raw routes are handled without a request");
+        }, raw);
+    }
+
     Route(Method method, String pattern, Supplier<BodyParser> bodyParser, Function<Request, CompletionStage<Response>> handler) {
         this(method, new ParameterizedPattern(pattern), bodyParser, handler);
     }
 
     Route(Method method, ParameterizedPattern pattern, Supplier<BodyParser> bodyParser, Function<Request, CompletionStage<Response>> handler) {
+        this(method, pattern, bodyParser, handler, null);
+    }
+
+    private Route(Method method, ParameterizedPattern pattern, Supplier<BodyParser> bodyParser, Function<Request, CompletionStage<Response>> handler, RawHandler raw) {
         this.method = method;
         this.pattern = pattern;
         this.bodyParser = bodyParser;
         this.handler = handler;
+        this.raw = raw;
     }
 
     public Method method() {
@@ -61,6 +74,14 @@ final class Route {
         return handler;
     }
 
+    public RawHandler raw() {
+        return raw;
+    }
+
+    public Route withHandler(Function<Request, CompletionStage<Response>> handler) {
+        return new Route(method, pattern, bodyParser, handler, raw);
+    }
+
     public boolean hasMethod(Method method) {
         return this.method.equals(method);
     }
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nosceon.titanite;
+
+import io.netty.handler.codec.http.HttpMethod;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * @author Johan Siebens
+ */
+final class RouteCache {
+
+    private final ConcurrentHashMap<Key, Slot> slots;
+
+    // clock of the cached slots, a hit only marks its slot, the hand evicts the first unmarked slot on insert
+    private final Slot[] clock;
+
+    private int hand; // guarded by this
+
+    private int size; // guarded by this
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    RouteCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be greater than 0");
+        }
+        this.slots = new ConcurrentHashMap<>(capacity * 4 / 3 + 1);
+        this.clock = new Slot[capacity];
+    }
+
+    RoutingResult get(HttpMethod method, String path, BiFunction<HttpMethod, String, RoutingResult> resolver) {
+        Key key = new Key(method.name(), path);
+
+        Slot slot = slots.get(key);
+        if (slot != null) {
+            hits.increment();
+            if (!slot.referenced) {
+                slot.referenced = true; // only written when changed, hot slots stay in the shared cache lines
+            }
+            return slot.result;
+        }
+
+        misses.increment();
+        RoutingResult result = resolver.apply(method, path);
+        put(key, result);
+        return result;
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private synchronized void put(Key key, RoutingResult result) {
+        if (slots.containsKey(key)) {
+            return; // resolved concurrently by another thread
+        }
+
+        Slot slot = new Slot(key, result);
+
+        if (size < clock.length) {
+            clock[size++] = slot;
+        }
+        else {
+            while (clock[hand].referenced) {
+                clock[hand].referenced = false;
+                hand = (hand + 1) % clock.length;
+            }
+            slots.remove(clock[hand].key);
+            clock[hand] = slot;
+            hand = (hand + 1) % clock.length;
+        }
+
+        slots.put(key, slot);
+    }
+
+    private static final class Slot {
+
+        private final Key key;
+
+        private final RoutingResult result;
+
+        private volatile boolean referenced; // new slots start unmarked, paths seen only once are evicted first
+
+        private Slot(Key key, RoutingResult result) {
+            this.key = key;
+            this.result = result;
+        }
+
+    }
+
+    private static final class Key {
+
+        private final String method;
+
+        private final String path;
+
+        private final int hash;
+
+        private Key(String method, String path) {
+            this.method = method;
+            this.path = path;
+            this.hash = 31 * method.hashCode() + path.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) o;
+            return hash == that.hash && path.equals(that.path) && method.equals(that.method);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+}
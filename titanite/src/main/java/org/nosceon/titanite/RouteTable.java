@@ -0,0 +1,44 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nosceon.titanite;
+
+import io.netty.handler.codec.http.HttpMethod;
+
+/**
+ * @author Johan Siebens
+ */
+final class RouteTable {
+
+    // an immutable snapshot, replaced as a whole when routes change on a running server
+    private volatile Router router;
+
+    RouteTable(Router router) {
+        this.router = router;
+    }
+
+    RoutingResult find(HttpMethod method, String path) {
+        return router.find(method, path);
+    }
+
+    Router router() {
+        return router;
+    }
+
+    void update(Router router) {
+        this.router = router;
+    }
+
+}
@@ -15,18 +15,22 @@
  */
 package org.nosceon.titanite;
 
-import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMethod;
+import io.netty.util.concurrent.FastThreadLocal;
 import org.nosceon.titanite.body.EmptyBodyParser;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
 import java.util.concurrent.CompletionStage;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
 import static java.util.Collections.emptyMap;
-import static java.util.stream.Collectors.toList;
 
 /**
  * @author Johan Siebens
@@ -37,59 +41,145 @@ final class Router {
 
     private static final RoutingResult NOT_FOUND = new RoutingResult(emptyMap(), EmptyBodyParser::new, (r) -> Response.notFound().toFuture());
 
-    private final List<Route> routes = new LinkedList<>();
+    private final Node root = new Node();
+
+    private final int maxParameters;
+
+    private final boolean numeric; // numeric constraints store their parsed values while matching
+
+    private final RouteCache cache;
+
+    private final FastThreadLocal<Matches> matches; // reused by the lookups on the same thread
 
     Router(List<Route> routings) {
-        this.routes.addAll(routings);
+        this(routings, 0);
+    }
+
+    Router(List<Route> routings, int cacheSize) {
+        int order = 0;
+        int maxParameters = 0;
+        boolean numeric = false;
+        for (Route route : routings) {
+            maxParameters = Math.max(maxParameters, add(route, order++));
+            numeric |= ParameterizedPattern.numeric(route.pattern().segments()) != null;
+        }
+        root.compile();
+        this.maxParameters = maxParameters;
+        this.numeric = numeric;
+        this.cache = cacheSize > 0 ? new RouteCache(cacheSize) : null;
+        this.matches = new FastThreadLocal<Matches>() {
+
+            @Override
+            protected Matches initialValue() {
+                return new Matches(Router.this.maxParameters, Router.this.numeric);
+            }
+
+        };
     }
 
     RoutingResult find(HttpMethod httpMethod, String path) {
+        return cache != null ? cache.get(httpMethod, path, this::resolve) : resolve(httpMethod, path);
+    }
+
+    RouteCache cache() {
+        return cache;
+    }
+
+    private RoutingResult resolve(HttpMethod httpMethod, String path) {
         Method method = map(httpMethod);
 
-        List<Route> candidates =
-            this.routes
-                .stream()
-                .filter(r -> r.pattern().matches(path))
-                .collect(toList());
+        Matches matches = this.matches.get();
+        matches.clear();
+
+        if (path.isEmpty() || path.charAt(0) == '/') {
+            root.match(path, 1, 0, matches);
+        }
 
-        if (candidates.isEmpty()) {
+        if (matches.size == 0) {
             return NOT_FOUND;
         }
-        else {
-            return
-                candidates
-                    .stream()
-                    .filter(route -> route.hasMethod(method))
-                    .findFirst()
-                    .map(route -> {
-                        ParameterizedPattern.Matcher matcher = route.pattern().matcher(path);
-                        return
-                            Method.OPTIONS.equals(method) ?
-                                new RoutingResult(matcher.parameters(), route.bodyParser(), new CompositeHandler(allowedMethodsFilter(candidates), route.handler())) :
-                                new RoutingResult(matcher.parameters(), route.bodyParser(), route.handler());
-                    })
-                    .orElseGet(() -> {
-                            if (Method.OPTIONS.equals(method)) {
-                                return new RoutingResult(emptyMap(), EmptyBodyParser::new, new CompositeHandler(allowedMethodsFilter(candidates), req -> Response.ok().toFuture()));
-                            }
-                            else if (Method.HEAD.equals(method)) {
-                                return find(HttpMethod.GET, path);
-                            }
-                            else {
-                                return METHOD_NOT_ALLOWED;
-                            }
-                        }
-                    );
+
+        int match = select(matches, method);
+        Entry entry = match < 0 ? null : matches.endpoints[match].first(method);
+
+        if (match < 0 && Method.HEAD.equals(method)) {
+            match = select(matches, Method.GET);
+            entry = match < 0 ? null : matches.endpoints[match].first(Method.GET);
+        }
+
+        if (Method.OPTIONS.equals(method)) {
+            String allow = matches.size == 1 ? matches.endpoints[0].allow : allowedMethods(matches);
+            if (entry != null) {
+                Function<Request, CompletionStage<Response>> handler = matches.size == 1 ? entry.optionsHandler : new CompositeHandler(allowedMethodsFilter(allow), entry.route.handler());
+                return new RoutingResult(matches.parameters(match, entry, path), entry.route.bodyParser(), handler, entry.route.raw());
+            }
+            return matches.size == 1 ? matches.endpoints[0].options : new RoutingResult(emptyMap(), EmptyBodyParser::new, new CompositeHandler(allowedMethodsFilter(allow), req -> Response.ok().toFuture()));
+        }
+
+        if (entry == null) {
+            return METHOD_NOT_ALLOWED;
+        }
+
+        return new RoutingResult(matches.parameters(match, entry, path), entry.route.bodyParser(), entry.route.handler(), entry.route.raw());
+    }
+
+    private int add(Route route, int order) {
+        List<String> names = new ArrayList<>();
+        Node node = root;
+
+        for (ParameterizedPattern.Segment segment : route.pattern().segments()) {
+            switch (segment.kind) {
+                case PARAM:
+                    names.add(segment.value);
+                    node = node.param(segment.constraint);
+                    break;
+                case OPTIONAL_SPLAT:
+                    names.add(segment.value);
+                    node.optionalSplat().add(route, order, names);
+                    return names.size();
+                case REQUIRED_SPLAT:
+                    names.add(segment.value);
+                    node.requiredSplat().add(route, order, names);
+                    return names.size();
+                default:
+                    node = node.child(segment.value);
+            }
         }
 
+        node.exact().add(route, order, names);
+        return names.size();
     }
 
-    private BiFunction<Request, Function<Request, CompletionStage<Response>>, CompletionStage<Response>> allowedMethodsFilter(List<Route> candidates) {
-        return (req, h) -> h.apply(req).thenApply(resp -> resp.header(HttpHeaders.Names.ALLOW, allowedMethods(candidates)));
+    // index of the first registered route with the method among all matching routes, as the routes were scanned before
+    private static int select(Matches matches, Method method) {
+        int selected = -1;
+        int order = Integer.MAX_VALUE;
+        for (int i = 0; i < matches.size; i++) {
+            Entry entry = matches.endpoints[i].first(method);
+            if (entry != null && entry.order < order) {
+                selected = i;
+                order = entry.order;
+            }
+        }
+        return selected;
     }
 
-    private String allowedMethods(List<Route> candidates) {
-        return candidates.stream().map(Route::method).distinct().map(Method::name).sorted().reduce("", (s, s2) -> s.length() == 0 ? s2 : s + ", " + s2);
+    private static BiFunction<Request, Function<Request, CompletionStage<Response>>, CompletionStage<Response>> allowedMethodsFilter(String allow) {
+        return (req, h) -> h.apply(req).thenApply(resp -> resp.header(HeaderNames.ALLOW, allow));
+    }
+
+    private static String allowedMethods(Matches matches) {
+        TreeSet<String> methods = new TreeSet<>();
+        for (int i = 0; i < matches.size; i++) {
+            matches.endpoints[i].methods.keySet().forEach(method -> methods.add(method.name()));
+        }
+        return String.join(", ", methods);
+    }
+
+    private static String allowedMethods(Map<Method, Entry> methods) {
+        TreeSet<String> names = new TreeSet<>();
+        methods.keySet().forEach(method -> names.add(method.name()));
+        return String.join(", ", names);
     }
 
     private Method map(HttpMethod method) {
@@ -101,4 +191,264 @@ final class Router {
         }
     }
 
+    private static final class Node {
+
+        private Map<String, Node> children = new HashMap<>();
+
+        // open addressing table of the static children, probed with the hash of a path region
+        private String[] keys;
+
+        private Node[] nodes;
+
+        private final Constraint constraint; // of a parameter node, null if it accepts any segment
+
+        private final List<Node> params = new ArrayList<>(1);
+
+        private Endpoint exact;
+
+        private Endpoint optionalSplat;
+
+        private Endpoint requiredSplat;
+
+        Node() {
+            this(null);
+        }
+
+        Node(Constraint constraint) {
+            this.constraint = constraint;
+        }
+
+        Node child(String segment) {
+            return children.computeIfAbsent(segment, s -> new Node());
+        }
+
+        Node param(Constraint constraint) {
+            for (Node param : params) {
+                if (Objects.equals(param.constraint, constraint)) {
+                    return param;
+                }
+            }
+            Node param = new Node(constraint);
+            params.add(param);
+            return param;
+        }
+
+        Endpoint exact() {
+            return exact == null ? (exact = new Endpoint()) : exact;
+        }
+
+        Endpoint optionalSplat() {
+            return optionalSplat == null ? (optionalSplat = new Endpoint()) : optionalSplat;
+        }
+
+        Endpoint requiredSplat() {
+            return requiredSplat == null ? (requiredSplat = new Endpoint()) : requiredSplat;
+        }
+
+        void compile() {
+            if (!children.isEmpty()) {
+                int capacity = Integer.highestOneBit(children.size() * 2 - 1) << 1;
+                keys = new String[capacity];
+                nodes = new Node[capacity];
+                children.forEach((key, node) -> {
+                    int i = key.hashCode() & (capacity - 1);
+                    while (keys[i] != null) {
+                        i = (i + 1) & (capacity - 1);
+                    }
+                    keys[i] = key;
+                    nodes[i] = node;
+                    node.compile();
+                });
+            }
+            children = null;
+
+            params.forEach(Node::compile);
+            if (exact != null) {
+                exact.compile();
+            }
+            if (optionalSplat != null) {
+                optionalSplat.compile();
+            }
+            if (requiredSplat != null) {
+                requiredSplat.compile();
+            }
+        }
+
+        // pos is the start of the next segment, or length + 1 once the path is consumed
+        void match(String path, int pos, int count, Matches matches) {
+            int length = path.length();
+            int[] offsets = matches.offsets;
+
+            if (pos > length) {
+                if (exact != null) {
+                    matches.add(exact, count);
+                }
+                if (optionalSplat != null) {
+                    offsets[count] = length;
+                    offsets[count + 1] = length;
+                    matches.add(optionalSplat, count + 2);
+                }
+                return;
+            }
+
+            int end = path.indexOf('/', pos);
+            if (end < 0) {
+                end = length;
+            }
+
+            Node child = child(path, pos, end);
+            if (child != null) {
+                child.match(path, end + 1, count, matches);
+            }
+
+            if (end > pos) {
+                for (Node param : params) {
+                    if (param.constraint == null || param.constraint.test(path, pos, end, matches.numbers, count / 2)) {
+                        offsets[count] = pos;
+                        offsets[count + 1] = end;
+                        param.match(path, end + 1, count + 2, matches);
+                    }
+                }
+            }
+
+            if (optionalSplat != null) {
+                offsets[count] = pos;
+                offsets[count + 1] = length;
+                matches.add(optionalSplat, count + 2);
+            }
+
+            if (requiredSplat != null && length > pos) {
+                offsets[count] = pos;
+                offsets[count + 1] = length;
+                matches.add(requiredSplat, count + 2);
+            }
+        }
+
+        private Node child(String path, int start, int end) {
+            if (keys == null) {
+                return null;
+            }
+
+            int hash = 0; // as String.hashCode, without creating the substring
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + path.charAt(i);
+            }
+
+            int len = end - start;
+            int mask = keys.length - 1;
+            for (int i = hash & mask; keys[i] != null; i = (i + 1) & mask) {
+                if (keys[i].length() == len && path.regionMatches(start, keys[i], 0, len)) {
+                    return nodes[i];
+                }
+            }
+            return null;
+        }
+
+    }
+
+    // all routes sharing the same shape, they only differ in method and parameter names
+    private static final class Endpoint {
+
+        private final List<Entry> entries = new ArrayList<>();
+
+        private final Map<Method, Entry> methods = new HashMap<>();
+
+        private String allow;
+
+        private RoutingResult options;
+
+        void add(Route route, int order, List<String> names) {
+            entries.add(new Entry(route, order, names.toArray(new String[names.size()])));
+        }
+
+        void compile() {
+            entries.forEach(e -> methods.putIfAbsent(e.route.method(), e));
+            allow = allowedMethods(methods);
+            options = new RoutingResult(emptyMap(), EmptyBodyParser::new, new CompositeHandler(allowedMethodsFilter(allow), req -> Response.ok().toFuture()));
+            entries.forEach(e -> e.optionsHandler = new CompositeHandler(allowedMethodsFilter(allow), e.route.handler()));
+        }
+
+        Entry first(Method method) {
+            return method == null ? null : methods.get(method);
+        }
+
+    }
+
+    private static final class Entry {
+
+        private final Route route;
+
+        private final int order;
+
+        private final String[] names;
+
+        private final boolean[] numeric;
+
+        private Function<Request, CompletionStage<Response>> optionsHandler;
+
+        Entry(Route route, int order, String[] names) {
+            this.route = route;
+            this.order = order;
+            this.names = names;
+            this.numeric = ParameterizedPattern.numeric(route.pattern().segments());
+        }
+
+    }
+
+    // matching routes of a single lookup, their offsets and numbers are kept side by side and only copied for the selected route
+    private static final class Matches {
+
+        private final int stride; // offsets per route, numbers take half of it
+
+        private final int[] offsets; // of the route being matched
+
+        private final long[] numbers; // parsed by numeric constraints, null if there are none
+
+        private Endpoint[] endpoints = new Endpoint[4];
+
+        private int[] matchedOffsets;
+
+        private long[] matchedNumbers;
+
+        private int size;
+
+        Matches(int maxParameters, boolean numeric) {
+            this.stride = maxParameters * 2;
+            this.offsets = new int[stride];
+            this.numbers = numeric ? new long[maxParameters] : null;
+            this.matchedOffsets = new int[stride * endpoints.length];
+            this.matchedNumbers = numeric ? new long[maxParameters * endpoints.length] : null;
+        }
+
+        void clear() {
+            Arrays.fill(endpoints, 0, size, null);
+            size = 0;
+        }
+
+        void add(Endpoint endpoint, int count) {
+            if (size == endpoints.length) {
+                endpoints = Arrays.copyOf(endpoints, size * 2);
+                matchedOffsets = Arrays.copyOf(matchedOffsets, stride * size * 2);
+                matchedNumbers = numbers == null ? null : Arrays.copyOf(matchedNumbers, stride / 2 * size * 2);
+            }
+            endpoints[size] = endpoint;
+            System.arraycopy(offsets, 0, matchedOffsets, stride * size, count);
+            if (numbers != null) {
+                System.arraycopy(numbers, 0, matchedNumbers, stride / 2 * size, count / 2);
+            }
+            size++;
+        }
+
+        Map<String, String> parameters(int match, Entry entry, String path) {
+            int count = entry.names.length;
+            if (count == 0) {
+                return emptyMap();
+            }
+            int[] offsets = Arrays.copyOfRange(matchedOffsets, stride * match, stride * match + count * 2);
+            long[] numbers = entry.numeric == null ? null : Arrays.copyOfRange(matchedNumbers, stride / 2 * match, stride / 2 * match + count);
+            return new ArrayParams(path, entry.names, offsets, entry.numeric, numbers);
+        }
+
+    }
+
 }
@@ -33,10 +33,17 @@ final class RoutingResult {
 
     private final Supplier<BodyParser> bodyParser;
 
+    private final RawHandler raw;
+
     public RoutingResult(Map<String, String> pathParams, Supplier<BodyParser> bodyParser, Function<Request, CompletionStage<Response>> handler) {
+        this(pathParams, bodyParser, handler, null);
+    }
+
+    public RoutingResult(Map<String, String> pathParams, Supplier<BodyParser> bodyParser, Function<Request, CompletionStage<Response>> handler, RawHandler raw) {
         this.pathParams = pathParams;
         this.bodyParser = bodyParser;
         this.handler = handler;
+        this.raw = raw;
     }
 
     public Map<String, String> pathParams() {
@@ -51,4 +58,8 @@ final class RoutingResult {
         return bodyParser;
     }
 
+    public RawHandler raw() {
+        return raw;
+    }
+
 }
@@ -29,10 +29,56 @@ public interface Settings {
 
     long DEFAULT_MAX_MULTI_PART_REQUEST_SIZE = -1; // unbounded
 
+    Transport DEFAULT_TRANSPORT = Transport.NIO;
+
+    int DEFAULT_ACCEPTOR_COUNT = 0; // accept on the io workers
+
+    int DEFAULT_MAX_PIPELINED_REQUESTS = 16;
+
+    long DEFAULT_DRAIN_TIMEOUT = 30000; // 30s
+
+    int DEFAULT_MAX_CONNECTIONS = 0; // unlimited
+
+    int DEFAULT_MAX_INFLIGHT_REQUESTS = 0; // unlimited
+
+    int DEFAULT_RETRY_AFTER = 1; // seconds
+
+    int DEFAULT_ROUTE_CACHE_SIZE = 0; // disabled
+
+    boolean DEFAULT_RECYCLE_REQUESTS = false;
+
+    int DEFAULT_MAX_INITIAL_LINE_LENGTH = 4096;
+
+    int DEFAULT_MAX_HEADER_SIZE = 8192;
+
+    int DEFAULT_MAX_CHUNK_SIZE = 8192;
+
+    long DEFAULT_IDLE_TIMEOUT = 0; // disabled
+
+    long DEFAULT_HEADER_READ_TIMEOUT = 0; // disabled
+
+    long DEFAULT_BODY_READ_TIMEOUT = 0; // disabled
+
+    long DEFAULT_WRITE_TIMEOUT = 0; // disabled
+
+    long DEFAULT_STREAM_IDLE_TIMEOUT = 0; // disabled, websockets and streaming responses are exempt
+
     enum ConnectorType {
         HTTP, HTTPS
     }
 
+    enum Transport {
+        NIO, EPOLL // EPOLL falls back to NIO when the native transport is not available
+    }
+
+    enum SslProvider {
+        JDK, OPENSSL // OPENSSL requires netty-tcnative
+    }
+
+    enum Allocator {
+        DEFAULT, POOLED_DIRECT, POOLED_HEAP, UNPOOLED_DIRECT, UNPOOLED_HEAP
+    }
+
     interface Connector {
 
         ConnectorType type();
@@ -47,14 +93,86 @@ public interface Settings {
 
         String keyPassword();
 
+        boolean tcpCork(); // only supported by the EPOLL transport
+
+        int listeners(); // more than one binds that many sockets with SO_REUSEPORT, only supported by the EPOLL transport
+
+        boolean tcpNoDelay();
+
+        int soBacklog(); // 0 uses the platform default
+
+        int receiveBufferSize(); // 0 uses the platform default
+
+        int sendBufferSize(); // 0 uses the platform default
+
+        int writeBufferHighWaterMark(); // 0 uses the netty default
+
+        int writeBufferLowWaterMark(); // 0 uses the netty default
+
+        Allocator allocator();
+
+        int maxInitialLineLength();
+
+        int maxHeaderSize();
+
+        int maxChunkSize();
+
+        boolean validateHeaders();
+
+        // timeouts in milliseconds, 0 disables them
+
+        long idleTimeout(); // keep-alive connection without a request in progress
+
+        long headerReadTimeout(); // from the first byte of a request until its headers are read
+
+        long bodyReadTimeout(); // between two reads of a request body
+
+        long writeTimeout(); // without progress on a pending write
+
+        long streamIdleTimeout(); // websocket or streaming response without any traffic
+
+        int maxConnections(); // excess connections are closed when accepted, 0 is unlimited
+
+        int maxInflightRequests(); // excess requests are answered with 503, 0 is unlimited
+
+        SslProvider sslProvider();
+
+        List<String> ciphers(); // in order of preference, empty uses the provider defaults
+
+        List<String> protocols(); // empty uses the provider defaults, only supported by the JDK provider
+
+        long sessionCacheSize(); // 0 uses the provider default
+
+        long sessionTimeout(); // seconds, 0 uses the provider default
+
+        byte[] ticketKeys(); // 48 bytes per key, only supported by the OPENSSL provider
+
     }
 
+    Transport transport();
+
+    int acceptorCount();
+
     int ioWorkerCount();
 
     long maxRequestSize();
 
     long maxMultipartRequestSize();
 
+    int maxPipelinedRequests(); // in flight per connection before reading is paused
+
+    long drainTimeout(); // milliseconds to wait for open connections when stopping, before closing them
+
+    int maxConnections(); // over all connectors, 0 is unlimited
+
+    int maxInflightRequests(); // over all connectors, 0 is unlimited
+
+    int retryAfter(); // seconds, sent with the 503 for requests exceeding maxInflightRequests
+
+    int routeCacheSize(); // routing decisions cached by method and path, 0 disables the cache
+
+    boolean recycleRequests(); // requests are pooled per event loop and reused once their response is written
+
     List<Connector> connectors();
 
 }
@@ -15,11 +15,13 @@
  */
 package org.nosceon.titanite;
 
+import java.util.concurrent.CompletionStage;
+
 /**
  * @author Johan Siebens
  */
 public interface Shutdownable {
 
-    void stop();
+    CompletionStage<Void> stop(); // completes when in-flight requests are drained and the server is stopped
 
 }
@@ -18,8 +18,6 @@ package org.nosceon.titanite;
 import java.util.Set;
 import java.util.function.Function;
 
-import static java.util.Optional.ofNullable;
-
 /**
  * @author Johan Siebens
  */
@@ -35,7 +33,7 @@ public abstract class SingleParams {
 
     protected static final Function<String, Double> DOUBLE = Double::valueOf;
 
-    protected static final Function<String, Boolean> BOOLEAN = s -> s.equals("1") || s.equals("t") || s.equals("true") || s.equals("on");
+    protected static final Function<String, Boolean> BOOLEAN = SingleParams::parseBoolean;
 
     public abstract String getString(String name);
 
@@ -43,67 +41,141 @@ public abstract class SingleParams {
 
     protected abstract IllegalArgumentException translate(Exception e, String type, String name, String value);
 
-    private <V> V getAndTranslateValue(String name, String type, Function<String, V> f, V defaultValue) {
-        return ofNullable(getString(name)).map(value -> {
-            try {
-                return f.apply(value);
-            }
-            catch (Exception e) {
-                throw translate(e, type, name, value);
-            }
-        }).orElse(defaultValue);
+    // implementations in this package holding values that are already parsed, e.g. by a route constraint, skip the conversion
+    boolean hasNumber(String name, long min, long max) {
+        return false;
+    }
+
+    long getNumber(String name) {
+        return parseLong(name, getString(name));
     }
 
     public final String getString(String name, String defaultValue) {
-        return ofNullable(getString(name)).orElse(defaultValue);
+        String value = getString(name);
+        return value != null ? value : defaultValue;
     }
 
     public final Short getShort(String name) {
-        return getAndTranslateValue(name, "short", SHORT, null);
+        String value = getString(name);
+        return value != null ? parseShort(name, value) : null;
     }
 
     public final short getShort(String name, short defaultValue) {
-        return getAndTranslateValue(name, "short", SHORT, defaultValue);
+        String value = getString(name);
+        return value != null ? parseShort(name, value) : defaultValue;
     }
 
     public final Integer getInt(String name) {
-        return getAndTranslateValue(name, "int", INT, null);
+        if (hasNumber(name, Integer.MIN_VALUE, Integer.MAX_VALUE)) {
+            return (int) getNumber(name);
+        }
+        String value = getString(name);
+        return value != null ? parseInt(name, value) : null;
     }
 
     public final int getInt(String name, int defaultValue) {
-        return getAndTranslateValue(name, "int", INT, defaultValue);
+        if (hasNumber(name, Integer.MIN_VALUE, Integer.MAX_VALUE)) {
+            return (int) getNumber(name);
+        }
+        String value = getString(name);
+        return value != null ? parseInt(name, value) : defaultValue;
     }
 
     public final Long getLong(String name) {
-        return getAndTranslateValue(name, "long", LONG, null);
+        if (hasNumber(name, Long.MIN_VALUE, Long.MAX_VALUE)) {
+            return getNumber(name);
+        }
+        String value = getString(name);
+        return value != null ? parseLong(name, value) : null;
     }
 
     public final long getLong(String name, long defaultValue) {
-        return getAndTranslateValue(name, "long", LONG, defaultValue);
+        if (hasNumber(name, Long.MIN_VALUE, Long.MAX_VALUE)) {
+            return getNumber(name);
+        }
+        String value = getString(name);
+        return value != null ? parseLong(name, value) : defaultValue;
     }
 
     public final Float getFloat(String name) {
-        return getAndTranslateValue(name, "float", FLOAT, null);
+        String value = getString(name);
+        return value != null ? parseFloat(name, value) : null;
     }
 
     public final float getFloat(String name, float defaultValue) {
-        return getAndTranslateValue(name, "float", FLOAT, defaultValue);
+        String value = getString(name);
+        return value != null ? parseFloat(name, value) : defaultValue;
     }
 
     public final Double getDouble(String name) {
-        return getAndTranslateValue(name, "double", DOUBLE, null);
+        String value = getString(name);
+        return value != null ? parseDouble(name, value) : null;
     }
 
     public final double getDouble(String name, double defaultValue) {
-        return getAndTranslateValue(name, "double", DOUBLE, defaultValue);
+        String value = getString(name);
+        return value != null ? parseDouble(name, value) : defaultValue;
     }
 
     public final Boolean getBoolean(String name) {
-        return getAndTranslateValue(name, "boolean", BOOLEAN, null);
+        String value = getString(name);
+        return value != null ? parseBoolean(value) : null;
     }
 
     public final boolean getBoolean(String name, boolean defaultValue) {
-        return getAndTranslateValue(name, "boolean", BOOLEAN, defaultValue);
+        String value = getString(name);
+        return value != null ? parseBoolean(value) : defaultValue;
+    }
+
+    // primitive parsing, failures are translated into the exception of the implementation
+
+    final short parseShort(String name, String value) {
+        try {
+            return Short.parseShort(value);
+        }
+        catch (NumberFormatException e) {
+            throw translate(e, "short", name, value);
+        }
+    }
+
+    final int parseInt(String name, String value) {
+        try {
+            return Integer.parseInt(value);
+        }
+        catch (NumberFormatException e) {
+            throw translate(e, "int", name, value);
+        }
+    }
+
+    final long parseLong(String name, String value) {
+        try {
+            return Long.parseLong(value);
+        }
+        catch (NumberFormatException e) {
+            throw translate(e, "long", name, value);
+        }
+    }
+
+    final float parseFloat(String name, String value) {
+        try {
+            return Float.parseFloat(value);
+        }
+        catch (NumberFormatException e) {
+            throw translate(e, "float", name, value);
+        }
+    }
+
+    final double parseDouble(String name, String value) {
+        try {
+            return Double.parseDouble(value);
+        }
+        catch (NumberFormatException e) {
+            throw translate(e, "double", name, value);
+        }
+    }
+
+    static boolean parseBoolean(String value) {
+        return value.equals("1") || value.equals("t") || value.equals("true") || value.equals("on");
     }
 
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nosceon.titanite;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * @author Johan Siebens
+ */
+final class Transports {
+
+    private static final boolean EPOLL_AVAILABLE = isEpollAvailable();
+
+    static EventLoopGroup newEventLoopGroup(Settings.Transport transport, int nThreads, ThreadFactory threadFactory) {
+        if (Settings.Transport.EPOLL.equals(transport)) {
+            if (EPOLL_AVAILABLE) {
+                return Epoll.newEventLoopGroup(nThreads, threadFactory);
+            }
+            Titanite.LOG.warn("native epoll transport is not available, falling back to nio");
+        }
+        return new NioEventLoopGroup(nThreads, threadFactory);
+    }
+
+    static boolean isEpoll(EventLoopGroup group) {
+        return EPOLL_AVAILABLE && Epoll.isEpoll(group);
+    }
+
+    static Class<? extends ServerChannel> serverChannelType(EventLoopGroup group) {
+        return isEpoll(group) ? Epoll.serverChannelType() : NioServerSocketChannel.class;
+    }
+
+    // returns the number of listening sockets to bind for the connector
+    static int configure(ServerBootstrap bootstrap, EventLoopGroup group, Settings.Connector connector) {
+        if (connector.tcpCork()) {
+            if (isEpoll(group)) {
+                Epoll.tcpCork(bootstrap);
+            }
+            else {
+                Titanite.LOG.warn("TCP_CORK is only supported by the native epoll transport, ignoring it for port " + connector.port());
+            }
+        }
+
+        if (connector.listeners() > 1) {
+            if (isEpoll(group)) {
+                Epoll.reusePort(bootstrap);
+                return connector.listeners();
+            }
+            else {
+                Titanite.LOG.warn("SO_REUSEPORT is only supported by the native epoll transport, binding a single listener for port " + connector.port());
+            }
+        }
+
+        return 1;
+    }
+
+    private static boolean isEpollAvailable() {
+        if (!System.getProperty("os.name", "").toLowerCase(Locale.US).startsWith("linux")) {
+            return false;
+        }
+        try {
+            Class.forName("io.netty.channel.epoll.Native", true, Transports.class.getClassLoader());
+            return true;
+        }
+        catch (Throwable e) {
+            return false;
+        }
+    }
+
+    // keeps all references to the optional native transport classes out of Transports itself
+    private static final class Epoll {
+
+        static EventLoopGroup newEventLoopGroup(int nThreads, ThreadFactory threadFactory) {
+            return new EpollEventLoopGroup(nThreads, threadFactory);
+        }
+
+        static boolean isEpoll(EventLoopGroup group) {
+            return group instanceof EpollEventLoopGroup;
+        }
+
+        static Class<? extends ServerChannel> serverChannelType() {
+            return EpollServerSocketChannel.class;
+        }
+
+        static void tcpCork(ServerBootstrap bootstrap) {
+            bootstrap.childOption(EpollChannelOption.TCP_CORK, true);
+        }
+
+        static void reusePort(ServerBootstrap bootstrap) {
+            bootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+        }
+
+    }
+
+    private Transports() {
+    }
+
+}
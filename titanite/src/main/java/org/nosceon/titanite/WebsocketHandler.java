@@ -21,7 +21,6 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
 import io.netty.handler.codec.http.FullHttpRequest;
-import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.websocketx.*;
 
@@ -56,6 +55,14 @@ class WebsocketHandler {
         }
     }
 
+    public boolean isOpen() {
+        return wsChannel != null;
+    }
+
+    public void close() {
+        wsChannel.close();
+    }
+
     public void handleWebSocketFrame(ChannelHandlerContext ctx, WebSocketFrame frame) {
         if (frame instanceof CloseWebSocketFrame) {
             wsHandshaker.close(ctx.channel(), (CloseWebSocketFrame) frame.retain());
@@ -79,7 +86,7 @@ class WebsocketHandler {
     }
 
     private static String getWebSocketLocation(Request req) {
-        String location = req.headers().getString(HttpHeaders.Names.HOST) + req.path();
+        String location = req.headers().get(HeaderNames.HOST) + req.path();
         return (req.isSecure() ? "wss://" : "ws://") + location;
     }
 
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nosceon.titanite.body;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+/**
+ * @author Johan Siebens
+ */
+public final class BodyStream {
+
+    // fired through the pipeline, the server handler decides when the connection is read
+    public enum Backpressure {
+        PAUSE, RESUME
+    }
+
+    private static final CompletionStage<Void> DONE = completedFuture(null);
+
+    private final ChannelHandlerContext ctx;
+
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+    // state below is only accessed on the event loop
+
+    private final Deque<HttpContent> chunks = new ArrayDeque<>();
+
+    private Function<ByteBuf, ? extends CompletionStage<?>> consumer;
+
+    private boolean busy;
+
+    private boolean draining;
+
+    private boolean last;
+
+    private boolean paused;
+
+    BodyStream(ChannelHandlerContext ctx) {
+        this.ctx = ctx;
+    }
+
+    // chunks are released once the consumer returns, retain them to keep them around
+
+    public CompletionStage<Void> forEach(Consumer<ByteBuf> consumer) {
+        return forEachAsync(chunk -> {
+            consumer.accept(chunk);
+            return DONE;
+        });
+    }
+
+    // the next chunk is only handed over when the stage of the previous one completes
+
+    public CompletionStage<Void> forEachAsync(Function<ByteBuf, ? extends CompletionStage<?>> consumer) {
+        if (!subscribed.compareAndSet(false, true)) {
+            throw new IllegalStateException("request body is already being consumed");
+        }
+        onEventLoop(() -> {
+            this.consumer = consumer;
+            drain();
+        });
+        return completion;
+    }
+
+    void offer(HttpContent chunk) {
+        if (completion.isDone()) {
+            return; // failed or released, the remainder of the body is discarded
+        }
+
+        chunks.add(chunk.retain());
+        last = chunk instanceof LastHttpContent;
+        drain();
+
+        if (!chunks.isEmpty()) {
+            pause();
+        }
+    }
+
+    // parsers are released from the thread completing the handler
+    void fail(Throwable cause) {
+        onEventLoop(() -> {
+            HttpContent chunk;
+            while ((chunk = chunks.poll()) != null) {
+                chunk.release();
+            }
+            completion.completeExceptionally(cause);
+            resume();
+        });
+    }
+
+    private void drain() {
+        if (draining) {
+            return; // chunks completed synchronously are picked up by the loop below
+        }
+
+        draining = true;
+        try {
+            while (!busy && consumer != null && !completion.isDone()) {
+                HttpContent chunk = chunks.poll();
+                if (chunk == null) {
+                    resume();
+                    return;
+                }
+                deliver(chunk);
+            }
+        }
+        finally {
+            draining = false;
+        }
+    }
+
+    private void deliver(HttpContent chunk) {
+        busy = true;
+
+        CompletionStage<?> stage;
+        try {
+            stage = chunk.content().isReadable() ? consumer.apply(chunk.content()) : DONE;
+        }
+        catch (RuntimeException e) {
+            CompletableFuture<Void> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            stage = failed;
+        }
+
+        stage.whenComplete((v, e) -> onEventLoop(() -> {
+            chunk.release();
+            busy = false;
+            if (e != null) {
+                fail(e);
+            }
+            else if (chunk instanceof LastHttpContent) {
+                completion.complete(null);
+            }
+            else {
+                drain();
+            }
+        }));
+    }
+
+    // once the last chunk is received, reading the next request is up to the server handler
+
+    private void pause() {
+        if (!paused && !last) {
+            paused = true;
+            ctx.pipeline().fireUserEventTriggered(Backpressure.PAUSE);
+        }
+    }
+
+    private void resume() {
+        if (paused && !last) {
+            paused = false;
+            ctx.pipeline().fireUserEventTriggered(Backpressure.RESUME);
+        }
+    }
+
+    private void onEventLoop(Runnable task) {
+        if (ctx.executor().inEventLoop()) {
+            task.run();
+        }
+        else {
+            ctx.executor().execute(task);
+        }
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nosceon.titanite.body;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.nosceon.titanite.HttpServerException;
+import org.nosceon.titanite.Response;
+import org.nosceon.titanite.exception.BodyNotAvailableException;
+
+import java.util.function.Supplier;
+
+/**
+ * @author Johan Siebens
+ */
+public final class StreamingBodyParser extends AbstractBodyParser {
+
+    public static Supplier<BodyParser> streamingBodyParser() {
+        return streamingBodyParser(-1);
+    }
+
+    public static Supplier<BodyParser> streamingBodyParser(long maxRequestSize) {
+        return () -> new StreamingBodyParser(maxRequestSize);
+    }
+
+    private BodyStream stream;
+
+    public StreamingBodyParser(long maxRequestSize) {
+        super(maxRequestSize);
+    }
+
+    @Override
+    public void initialize(ChannelHandlerContext ctx, HttpRequest request) {
+        this.stream = new BodyStream(ctx);
+    }
+
+    @Override
+    protected void doOffer(HttpContent chunk) {
+        stream.offer(chunk);
+    }
+
+    @Override
+    public void release() {
+        if (isMaximumExceeded()) {
+            stream.fail(new HttpServerException(Response.status(HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE.code()).text("Request Entity Too Large")));
+        }
+        else {
+            stream.fail(new BodyNotAvailableException());
+        }
+    }
+
+    @Override
+    protected Object apply(Class<?> type) {
+        if (type.isAssignableFrom(BodyStream.class)) {
+            return stream;
+        }
+
+        throw new IllegalArgumentException(this.getClass().getName() + " does not support [" + type.getName() + "]");
+    }
+
+}
@@ -24,7 +24,7 @@ import java.util.Optional;
 import java.util.concurrent.CompletionStage;
 import java.util.function.Function;
 
-import static io.netty.handler.codec.http.HttpHeaders.Names.IF_MODIFIED_SINCE;
+import static org.nosceon.titanite.HeaderNames.IF_MODIFIED_SINCE;
 import static java.util.Optional.ofNullable;
 import static org.nosceon.titanite.Utils.getMediaTypeFromFileName;
 
@@ -29,7 +29,7 @@ import java.util.concurrent.CompletionStage;
 import java.util.function.Function;
 import java.util.jar.JarEntry;
 
-import static io.netty.handler.codec.http.HttpHeaders.Names.IF_MODIFIED_SINCE;
+import static org.nosceon.titanite.HeaderNames.IF_MODIFIED_SINCE;
 import static java.util.Optional.ofNullable;
 import static org.nosceon.titanite.Utils.*;
 import static org.nosceon.titanite.service.FileService.serveFile;
@@ -44,6 +44,10 @@ public abstract class AbstractE2ETest {
 
     protected abstract Shutdownable configureAndStartHttpServer(HttpServer server) throws Exception;
 
+    protected int port() {
+        return port;
+    }
+
     protected String uri(String path) {
         return "http://localhost:" + port + path;
     }
@@ -65,7 +69,7 @@ public abstract class AbstractE2ETest {
         return port;
     }
 
-    private HttpServer newServer(int port) {
+    protected HttpServer newServer(int port) {
         return new HttpServer(newSettings().setIoWorkerCount(2).setMaxRequestSize(maxRequestSize()).addHttpConnector(port).build());
     }
 
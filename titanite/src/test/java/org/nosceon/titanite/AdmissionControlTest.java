@@ -0,0 +1,103 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nosceon.titanite;
+
+import io.netty.handler.codec.http.HttpHeaders;
+import org.junit.Test;
+
+import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.jayway.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.nosceon.titanite.ImmutableSettings.newHttpConnector;
+import static org.nosceon.titanite.ImmutableSettings.newSettings;
+import static org.nosceon.titanite.Method.GET;
+import static org.nosceon.titanite.Response.ok;
+
+/**
+ * @author Johan Siebens
+ */
+public class AdmissionControlTest extends AbstractE2ETest {
+
+    private final CountDownLatch blocked = new CountDownLatch(1);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Override
+    protected HttpServer newServer(int port) {
+        return new HttpServer(
+            newSettings()
+                .setIoWorkerCount(2)
+                .setMaxInflightRequests(1)
+                .setRetryAfter(5)
+                .addConnector(newHttpConnector(port).setMaxConnections(4))
+                .build()
+        );
+    }
+
+    @Override
+    protected Shutdownable configureAndStartHttpServer(HttpServer server) throws Exception {
+        return
+            server
+                .register(GET, "/text", (r) -> ok().text("Hello World").toFuture())
+                .register(GET, "/block", (r) -> CompletableFuture.supplyAsync(() -> {
+                    blocked.countDown();
+                    Utils.runUnchecked(release::await);
+                    return ok().text("released");
+                }))
+                .start();
+    }
+
+    @Test
+    public void testExcessRequestIsRejected() throws Exception {
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() ->
+            given().expect().statusCode(200).body(equalTo("released")).when().get(uri("/block"))
+        );
+        assertThat(blocked.await(5, TimeUnit.SECONDS), is(true));
+
+        given().expect().statusCode(503).header(HttpHeaders.Names.RETRY_AFTER, "5").when().get(uri("/text"));
+
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+
+        given().expect().statusCode(200).body(equalTo("Hello World")).when().get(uri("/text"));
+    }
+
+    @Test
+    public void testExcessConnectionIsClosed() throws Exception {
+        Socket[] sockets = new Socket[5];
+        try {
+            for (int i = 0; i < sockets.length; i++) {
+                sockets[i] = new Socket("localhost", port());
+            }
+            sockets[4].setSoTimeout(5000);
+            assertThat(sockets[4].getInputStream().read(), is(-1));
+        }
+        finally {
+            for (Socket socket : sockets) {
+                if (socket != null) {
+                    socket.close();
+                }
+            }
+        }
+    }
+
+}
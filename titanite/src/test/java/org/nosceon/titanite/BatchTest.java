@@ -0,0 +1,171 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nosceon.titanite;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.jayway.restassured.RestAssured.given;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+import static org.nosceon.titanite.Method.GET;
+import static org.nosceon.titanite.Method.POST;
+import static org.nosceon.titanite.Response.ok;
+
+/**
+ * @author Johan Siebens
+ */
+public class BatchTest extends AbstractE2ETest {
+
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    private final AtomicInteger maxInflight = new AtomicInteger();
+
+    @Override
+    protected Shutdownable configureAndStartHttpServer(HttpServer server) throws Exception {
+        File file = File.createTempFile("batch", ".txt");
+        file.deleteOnExit();
+        Files.write(file.toPath(), bytes("from file"));
+
+        return
+            server
+                .register(GET, "/slow", (r) -> CompletableFuture.supplyAsync(() -> {
+                    maxInflight.accumulateAndGet(inflight.incrementAndGet(), Math::max);
+                    Utils.runUnchecked(() -> Thread.sleep(200));
+                    inflight.decrementAndGet();
+                    return ok().text("slow");
+                }))
+                .register(GET, "/fast", (r) -> ok().text("fast " + r.headers().getString("X-Tenant")).toFuture())
+                .register(POST, "/echo", (r) -> ok().text(r.body().asText()).toFuture())
+                .register(GET, "/file", (r) -> ok().body(file).toFuture())
+                .register(GET, "/broken", (r) -> CompletableFuture.completedFuture(null))
+                .registerRaw(GET, "/health", (e) -> e.respond(200, "text/plain", "UP"))
+                .registerBatch("/batch", 5, 2)
+                .start();
+    }
+
+    @Test
+    public void testResponsesInRequestOrder() {
+        String body =
+            given()
+                .contentType("multipart/mixed; boundary=b")
+                .header("X-Tenant", "acme")
+                .body(bytes(
+                    "--b\r\nContent-Type: application/http\r\nContent-ID: <1>\r\n\r\nGET /slow HTTP/1.1\r\n\r\n" +
+                        "\r\n--b\r\nContent-Type: application/http\r\nContent-ID: <2>\r\n\r\nGET /fast HTTP/1.1\r\n\r\n" +
+                        "\r\n--b\r\nContent-Type: application/http\r\n\r\nPOST /echo HTTP/1.1\r\nContent-Type: text/plain\r\n\r\nhello" +
+                        "\r\n--b\r\nContent-Type: application/http\r\n\r\nGET /unknown HTTP/1.1\r\n\r\n" +
+                        "\r\n--b--\r\n"
+                ))
+                .expect().statusCode(200).contentType(startsWith("multipart/mixed")).when().post(uri("/batch")).body().asString();
+
+        assertThat(body.replaceAll("(?s)HTTP/1.1 (\\d+).*?\r\n\r\n([^\r]*)\r\n", "[$1 $2]").replaceAll("(?s)--batch_\\w+(--)?\r\n", "").replaceAll("Content-Type: application/http\r\n", "").replace("\r\n", ""),
+            is("Content-ID: <1>[200 slow]Content-ID: <2>[200 fast acme][200 hello][404 ]"));
+    }
+
+    @Test
+    public void testStreamedResponsesAsTheyComplete() {
+        String body =
+            given()
+                .contentType("multipart/mixed; boundary=b")
+                .body(bytes(
+                    "--b\r\n\r\nGET /slow HTTP/1.1\r\n\r\n" +
+                        "\r\n--b\r\n\r\nGET /fast HTTP/1.1\r\n\r\n" +
+                        "\r\n--b--\r\n"
+                ))
+                .expect().statusCode(200).when().post(uri("/batch?stream=true")).body().asString();
+
+        assertThat(body.indexOf("fast"), lessThanOrEqualTo(body.indexOf("slow")));
+        assertThat(body, containsString("--\r\n"));
+    }
+
+    @Test
+    public void testLimits() {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 5; i++) {
+            body.append("--b\r\n\r\nGET /slow HTTP/1.1\r\n\r\n\r\n");
+        }
+        given().contentType("multipart/mixed; boundary=b").body(bytes(body + "--b--\r\n")).expect().statusCode(200).when().post(uri("/batch"));
+        assertThat(maxInflight.get(), lessThanOrEqualTo(2));
+
+        body.append("--b\r\n\r\nGET /fast HTTP/1.1\r\n\r\n\r\n");
+        given().contentType("multipart/mixed; boundary=b").body(bytes(body + "--b--\r\n")).expect().statusCode(413).when().post(uri("/batch"));
+
+        given().contentType("text/plain").body(bytes("GET /fast HTTP/1.1\r\n\r\n")).expect().statusCode(415).when().post(uri("/batch"));
+        given().contentType("multipart/mixed; boundary=b").body(bytes("garbage")).expect().statusCode(400).when().post(uri("/batch"));
+    }
+
+    @Test
+    public void testFileResponses() {
+        String body =
+            given()
+                .contentType("multipart/mixed; boundary=b")
+                .body(bytes(
+                    "--b\r\nContent-Type: application/http\r\n\r\nGET /file HTTP/1.1\r\n\r\n" +
+                        "\r\n--b\r\nContent-Type: application/http\r\n\r\nGET /fast HTTP/1.1\r\n\r\n" +
+                        "\r\n--b--\r\n"
+                ))
+                .expect().statusCode(200).when().post(uri("/batch")).body().asString();
+
+        assertThat(body, containsString("\r\n\r\nfrom file\r\n"));
+        assertThat(body, containsString("\r\n\r\nfast null\r\n"));
+    }
+
+    @Test
+    public void testFailingRequests() {
+        String body =
+            given()
+                .contentType("multipart/mixed; boundary=b")
+                .body(bytes(
+                    "--b\r\nContent-Type: application/http\r\n\r\nGET /broken HTTP/1.1\r\n\r\n" +
+                        "\r\n--b\r\nContent-Type: application/http\r\n\r\nGET /fast HTTP/1.1\r\n\r\n" +
+                        "\r\n--b--\r\n"
+                ))
+                .expect().statusCode(200).when().post(uri("/batch")).body().asString();
+
+        assertThat(body, containsString("HTTP/1.1 500 Internal Server Error"));
+        assertThat(body, containsString("\r\n\r\nfast null\r\n"));
+    }
+
+    @Test
+    public void testRawRoutesAreNotBatched() {
+        String body =
+            given()
+                .contentType("multipart/mixed; boundary=b")
+                .body(bytes(
+                    "--b\r\nContent-Type: application/http\r\n\r\nGET /health HTTP/1.1\r\n\r\n" +
+                        "\r\n--b\r\nContent-Type: application/http\r\n\r\nGET /fast HTTP/1.1\r\n\r\n" +
+                        "\r\n--b--\r\n"
+                ))
+                .expect().statusCode(200).when().post(uri("/batch")).body().asString();
+
+        assertThat(body, containsString("HTTP/1.1 501 Not Implemented"));
+        assertThat(body, containsString("\r\n\r\nfast null\r\n"));
+    }
+
+    private static byte[] bytes(String body) {
+        return body.getBytes(US_ASCII);
+    }
+
+}
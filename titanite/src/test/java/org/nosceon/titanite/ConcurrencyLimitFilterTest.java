@@ -0,0 +1,147 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nosceon.titanite;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.jayway.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.nosceon.titanite.Filters.concurrencyLimit;
+import static org.nosceon.titanite.Method.GET;
+import static org.nosceon.titanite.Response.ok;
+
+/**
+ * @author Johan Siebens
+ */
+public class ConcurrencyLimitFilterTest extends AbstractE2ETest {
+
+    private final ConcurrencyLimitFilter rejecting = concurrencyLimit().setInitialLimit(1).setMaxLimit(1);
+
+    private final ConcurrencyLimitFilter queueing = concurrencyLimit().setInitialLimit(1).setMaxLimit(1).setMaxQueueSize(1);
+
+    private final CountDownLatch blocked = new CountDownLatch(1);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Override
+    protected Shutdownable configureAndStartHttpServer(HttpServer server) throws Exception {
+        return
+            server
+                .register(GET, "/reject/block", rejecting, (r) -> block())
+                .register(GET, "/reject/text", rejecting, (r) -> ok().text("Hello World").toFuture())
+                .register(GET, "/queue/block", queueing, (r) -> block())
+                .register(GET, "/queue/text", queueing, (r) -> ok().text("Hello World").toFuture())
+                .start();
+    }
+
+    private CompletionStage<Response> block() {
+        return CompletableFuture.supplyAsync(() -> {
+            blocked.countDown();
+            Utils.runUnchecked(release::await);
+            return ok().text("released");
+        });
+    }
+
+    @Test(timeout = 10000)
+    public void testRejectsAboveLimit() throws Exception {
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> given().expect().statusCode(200).when().get(uri("/reject/block")));
+        assertThat(blocked.await(5, TimeUnit.SECONDS), is(true));
+
+        given().expect().statusCode(503).when().get(uri("/reject/text"));
+        assertThat(rejecting.rejected(), is(1L));
+        assertThat(rejecting.inflight(), is(1));
+
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+
+        given().expect().statusCode(200).body(equalTo("Hello World")).when().get(uri("/reject/text"));
+        assertThat(rejecting.limit(), is(1));
+    }
+
+    @Test(timeout = 10000)
+    public void testQueuesAboveLimit() throws Exception {
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> given().expect().statusCode(200).when().get(uri("/queue/block")));
+        assertThat(blocked.await(5, TimeUnit.SECONDS), is(true));
+
+        CompletableFuture<Void> second = CompletableFuture.runAsync(() -> given().expect().statusCode(200).body(equalTo("Hello World")).when().get(uri("/queue/text")));
+        while (queueing.queued() == 0) {
+            Thread.sleep(10);
+        }
+
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+        assertThat(queueing.rejected(), is(0L));
+    }
+
+    @Test(timeout = 10000)
+    public void testLimitAdaptsToLatency() throws Exception {
+        ConcurrencyLimitFilter filter = concurrencyLimit().setInitialLimit(4).setMaxLimit(100);
+
+        for (int i = 0; i < 10; i++) {
+            respondAfter(filter, 5);
+        }
+        int grown = filter.limit();
+        assertThat(grown > 4, is(true));
+
+        for (int i = 0; i < 3; i++) {
+            respondAfter(filter, 50);
+        }
+        assertThat(filter.limit() < grown, is(true));
+    }
+
+    @Test(timeout = 10000)
+    public void testDrainsQueuedRequestsWithoutRecursion() throws Exception {
+        ConcurrencyLimitFilter filter = concurrencyLimit().setInitialLimit(1).setMaxLimit(1).setMaxQueueSize(10000);
+
+        CompletableFuture<Response> first = new CompletableFuture<>();
+        filter.apply(null, (r) -> first);
+
+        List<CompletionStage<Response>> queued = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            queued.add(filter.apply(null, (r) -> ok().toFuture()));
+        }
+        assertThat(filter.queued(), is(10000));
+
+        first.complete(ok());
+        for (CompletionStage<Response> response : queued) {
+            response.toCompletableFuture().get(5, TimeUnit.SECONDS);
+        }
+        assertThat(filter.queued(), is(0));
+        assertThat(filter.inflight(), is(0));
+    }
+
+    // fills the current limit with requests answered together after the given latency
+    private static void respondAfter(ConcurrencyLimitFilter filter, long millis) throws Exception {
+        CompletableFuture<Response> response = new CompletableFuture<>();
+        int limit = filter.limit();
+        for (int i = 0; i < limit; i++) {
+            filter.apply(null, (r) -> response);
+        }
+        Thread.sleep(millis);
+        response.complete(ok());
+    }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nosceon.titanite;
+
+import org.junit.Test;
+
+import static com.jayway.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.nosceon.titanite.ImmutableSettings.newHttpConnector;
+import static org.nosceon.titanite.ImmutableSettings.newSettings;
+import static org.nosceon.titanite.Method.GET;
+import static org.nosceon.titanite.Response.ok;
+
+/**
+ * @author Johan Siebens
+ */
+public class ConnectorSettingsTest extends AbstractE2ETest {
+
+    @Override
+    protected HttpServer newServer(int port) {
+        return new HttpServer(
+            newSettings()
+                .setIoWorkerCount(2)
+                .addConnector(
+                    newHttpConnector(port)
+                        .setTcpNoDelay(true)
+                        .setSoBacklog(256)
+                        .setReceiveBufferSize(32 * 1024)
+                        .setSendBufferSize(32 * 1024)
+                        .setWriteBufferWaterMark(8 * 1024, 16 * 1024)
+                        .setAllocator(Settings.Allocator.POOLED_HEAP)
+                        .setMaxHeaderSize(1024)
+                )
+                .build()
+        );
+    }
+
+    @Override
+    protected Shutdownable configureAndStartHttpServer(HttpServer server) throws Exception {
+        return
+            server
+                .register(GET, "/text", (r) -> ok().text("Hello World").toFuture())
+                .start();
+    }
+
+    @Test
+    public void test() {
+        given().expect().statusCode(200).body(equalTo("Hello World")).when().get(uri("/text"));
+    }
+
+    @Test
+    public void testHeaderTooLarge() {
+        given().header("p", new String(new char[2048]).replace('\0', 'a')).expect().statusCode(400).when().get(uri("/text"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidWaterMarks() {
+        newHttpConnector(8080).setWriteBufferWaterMark(2048, 1024);
+    }
+
+}
@@ -17,6 +17,8 @@ package org.nosceon.titanite;
 
 import org.junit.Test;
 
+import java.util.TreeSet;
+
 import static com.jayway.restassured.RestAssured.given;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.nosceon.titanite.Method.GET;
@@ -32,6 +34,7 @@ public class CookiesTest extends AbstractE2ETest {
         return
             server
                 .register(GET, "/a", (r) -> ok().body(r.cookies().getString("p", "default value")).toFuture())
+                .register(GET, "/b", (r) -> ok().body(new TreeSet<>(r.cookies().keys()) + " " + r.cookies().getInt("count")).toFuture())
                 .register(GET, "/cookie", (r) -> ok().cookie("lorem", "ipsum").cookie(new Cookie("fruit", "apple").version(2).comment("my comment").path("/cookie")).toFuture())
                 .start();
     }
@@ -40,6 +43,8 @@ public class CookiesTest extends AbstractE2ETest {
     public void test() {
         given().cookie("p", "apple").expect().statusCode(200).body(equalTo("apple")).when().get(uri("/a"));
         given().expect().statusCode(200).body(equalTo("default value")).when().get(uri("/a"));
+        given().cookie("p", "apple").cookie("count", "5").expect().statusCode(200).body(equalTo("[count, p] 5")).when().get(uri("/b"));
+        given().expect().statusCode(200).body(equalTo("[] null")).when().get(uri("/b"));
         given().expect().statusCode(200).cookie("lorem", "ipsum").cookie("fruit", "apple").when().get(uri("/cookie"));
     }
 
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nosceon.titanite;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.jayway.restassured.RestAssured.given;
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.nosceon.titanite.Filters.filter;
+import static org.nosceon.titanite.Filters.filters;
+import static org.nosceon.titanite.Response.ok;
+
+/**
+ * @author Johan Siebens
+ */
+public class FilterChainTest extends AbstractE2ETest {
+
+    private final List<String> trace = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void clearTrace() {
+        trace.clear();
+    }
+
+    private Filter trace(String name) {
+        return (request, handler) -> {
+            trace.add(name);
+            return handler.apply(request);
+        };
+    }
+
+    @Override
+    protected Shutdownable configureAndStartHttpServer(HttpServer server) throws Exception {
+        return
+            server
+                .setFilter(filters(trace("a"), trace("b"), filter(trace("c")).include("/users/**")))
+                .register(Method.GET, "/static", trace("d"), req -> ok().text("static").toFuture())
+                .register(Method.GET, "/users/:id", filter(trace("e")).include("/users/1"), req -> ok().text(req.pathParams().getString("id")).toFuture())
+                .start();
+    }
+
+    @Test
+    public void testOrder() {
+        given().expect().statusCode(200).body(equalTo("static")).when().get(uri("/static"));
+        assertThat(trace, equalTo(asList("a", "b", "d")));
+    }
+
+    @Test
+    public void testGuards() {
+        given().expect().statusCode(200).body(equalTo("1")).when().get(uri("/users/1"));
+        assertThat(trace, equalTo(asList("a", "b", "c", "e")));
+
+        trace.clear();
+
+        given().expect().statusCode(200).body(equalTo("2")).when().get(uri("/users/2"));
+        assertThat(trace, equalTo(asList("a", "b", "c")));
+    }
+
+    @Test
+    public void testStaticRoutesSkipPatternsThatCannotMatch() {
+        Route route = new Route(Method.GET, "/static", null, new CompositeHandler(filters(trace("a"), filter(trace("b")).include("/users/**")), req -> ok().toFuture()));
+        assertThat(((FilterChain) FilterChain.compile(route)).size(), equalTo(1));
+
+        Route dynamic = new Route(Method.GET, "/:id", null, new CompositeHandler(filters(trace("a"), filter(trace("b")).include("/users/**")), req -> ok().toFuture()));
+        assertThat(((FilterChain) FilterChain.compile(dynamic)).size(), equalTo(3));
+    }
+
+}
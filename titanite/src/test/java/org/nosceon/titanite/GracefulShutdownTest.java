@@ -0,0 +1,104 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nosceon.titanite;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.endsWith;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.junit.Assert.assertThat;
+import static org.nosceon.titanite.ImmutableSettings.newSettings;
+import static org.nosceon.titanite.Method.GET;
+import static org.nosceon.titanite.Response.ok;
+
+/**
+ * @author Johan Siebens
+ */
+public class GracefulShutdownTest extends AbstractE2ETest {
+
+    private Shutdownable shutdownable;
+
+    @Override
+    protected HttpServer newServer(int port) {
+        return new HttpServer(newSettings().setIoWorkerCount(2).setDrainTimeout(500).addHttpConnector(port).build());
+    }
+
+    @Override
+    protected Shutdownable configureAndStartHttpServer(HttpServer server) throws Exception {
+        this.shutdownable =
+            server
+                .register(GET, "/slow", (r) -> CompletableFuture.supplyAsync(() -> {
+                    Utils.runUnchecked(() -> Thread.sleep(500));
+                    return ok().text("slow");
+                }))
+                .register(GET, "/never", (r) -> ok().chunks(o -> o.write("started".getBytes())).toFuture())
+                .start();
+        return shutdownable;
+    }
+
+    @Test
+    public void testInFlightRequestIsCompleted() throws Exception {
+        try (Socket socket = new Socket("localhost", port())) {
+            socket.getOutputStream().write("GET /slow HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes("US-ASCII"));
+            Thread.sleep(100);
+
+            CompletableFuture<Void> stopped = shutdownable.stop().toCompletableFuture();
+
+            String response = readFully(socket.getInputStream());
+            assertThat(response, startsWith("HTTP/1.1 200 OK"));
+            assertThat(response, containsString("Connection: close"));
+            assertThat(response, endsWith("slow"));
+
+            stopped.get(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test(expected = ConnectException.class)
+    public void testListenersAreClosed() throws Exception {
+        shutdownable.stop().toCompletableFuture().get(10, TimeUnit.SECONDS);
+        new Socket("localhost", port()).close();
+    }
+
+    @Test
+    public void testOpenStreamIsClosedAfterDrainTimeout() throws Exception {
+        Socket socket = new Socket("localhost", port());
+        socket.getOutputStream().write("GET /never HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes("US-ASCII"));
+        socket.getInputStream().read();
+
+        shutdownable.stop().toCompletableFuture().get(10, TimeUnit.SECONDS);
+        readFully(socket.getInputStream());
+        socket.close();
+    }
+
+    private static String readFully(InputStream in) throws Exception {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            result.write(buffer, 0, n);
+        }
+        return result.toString("US-ASCII");
+    }
+
+}
@@ -55,6 +55,8 @@ public class HeadersTest extends AbstractE2ETest {
                             .toFuture()
                 )
 
+                .register(GET, "/cs", (r) -> ok().body(r.headers().get(HeaderNames.ACCEPT) + " " + r.headers().contains(HeaderNames.AUTHORIZATION) + " " + r.headers().contains("p", "APPLE") + " " + r.headers().getDate(HeaderNames.IF_MODIFIED_SINCE)).toFuture())
+
                 .register(GET, "/ma", (r) -> ok().body(String.valueOf(r.headers().getStrings("p"))).toFuture())
 
                 .start();
@@ -79,6 +81,9 @@ public class HeadersTest extends AbstractE2ETest {
             .header(HttpHeaders.LOCATION, equalTo(uri("/location")))
             .when().get(uri("/headers"));
 
+        given().header("Accept", "text/plain").header("p", "apple").expect().statusCode(200).body(equalTo("text/plain false true null")).when().get(uri("/cs"));
+        given().header("Authorization", "x").header("If-Modified-Since", "Thu, 01 Jan 1970 00:00:05 GMT").expect().statusCode(200).body(equalTo("*/* true false " + DATE)).when().get(uri("/cs"));
+
         given().header("p", "apple").header("p", "orange").expect().statusCode(200).body(equalTo("[apple, orange]")).when().get(uri("/ma"));
     }
 
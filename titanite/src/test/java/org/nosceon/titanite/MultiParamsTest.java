@@ -60,6 +60,32 @@ public class MultiParamsTest {
         assertThat(params("a", "false", "true", "false").getBooleans("a"), contains(false, true, false));
     }
 
+    @Test
+    public void testGetIntArray() {
+        assertArrayEquals(new int[]{3, 7}, params("a", "3", "7").getIntArray("a"));
+        assertArrayEquals(new int[0], params("a", "3", "7").getIntArray("b"));
+    }
+
+    @Test
+    public void testGetLongArray() {
+        assertArrayEquals(new long[]{3l, 7l}, params("a", "3", "7").getLongArray("a"));
+    }
+
+    @Test
+    public void testGetDoubleArray() {
+        assertArrayEquals(new double[]{3d, 7.5d}, params("a", "3", "7.5").getDoubleArray("a"), 0d);
+    }
+
+    @Test
+    public void testGetBooleanArray() {
+        assertTrue(Arrays.equals(new boolean[]{false, true, true}, params("a", "false", "true", "on").getBooleanArray("a")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetIntArrayWithInvalidValue() {
+        params("a", "3", "x").getIntArray("a");
+    }
+
     private MultiParams params(String key, String... values) {
         return new MultiParams() {
 
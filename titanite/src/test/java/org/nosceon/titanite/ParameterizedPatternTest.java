@@ -105,6 +105,58 @@ public class ParameterizedPatternTest {
         assertThat(pattern.matcher("/lorem/ipsum").matches(), is(false));
     }
 
+    @Test
+    public void testSegmentBoundaries() {
+        ParameterizedPattern pattern = new ParameterizedPattern("/hello/:name");
+        assertThat(pattern.matches("/hello/world"), is(true));
+        assertThat(pattern.matches("/hello/world/"), is(false));
+        assertThat(pattern.matches("/hello/"), is(false));
+        assertThat(pattern.matches("/hello"), is(false));
+        assertThat(pattern.matches("/helloo/world"), is(false));
+        assertThat(pattern.matches("hello/world"), is(false));
+
+        assertThat(new ParameterizedPattern("/").matches("/"), is(true));
+        assertThat(new ParameterizedPattern("/").matches(""), is(false));
+        assertThat(new ParameterizedPattern("/*path").matcher("").parameters().get("path"), equalTo(""));
+    }
+
+    @Test
+    public void testParametersAreReadFromThePath() {
+        ParameterizedPattern.Matcher matcher = new ParameterizedPattern("/a/:x/b/:y").matcher("/a/1/b/2");
+        assertThat(matcher.parameters().keySet().toString(), equalTo("[x, y]"));
+        assertThat(matcher.parameters().containsKey("y"), is(true));
+        assertThat(matcher.parameters().get("z"), equalTo(null));
+        assertThat(matcher.parameters().toString(), equalTo("{x=1, y=2}"));
+    }
+
+    @Test
+    public void testConstraints() {
+        ParameterizedPattern ints = new ParameterizedPattern("/users/:id<int>");
+        assertThat(ints.matches("/users/42"), is(true));
+        assertThat(ints.matches("/users/-2147483648"), is(true));
+        assertThat(ints.matches("/users/2147483648"), is(false));
+        assertThat(ints.matches("/users/4a"), is(false));
+        assertThat(ints.matches("/users/-"), is(false));
+        assertThat(ints.matcher("/users/42").parameters().get("id"), equalTo("42"));
+
+        ParameterizedPattern longs = new ParameterizedPattern("/users/:id<long>");
+        assertThat(longs.matches("/users/9223372036854775807"), is(true));
+        assertThat(longs.matches("/users/9223372036854775808"), is(false));
+
+        ParameterizedPattern uuids = new ParameterizedPattern("/orders/:id<uuid>");
+        assertThat(uuids.matches("/orders/123e4567-e89b-12d3-a456-426655440000"), is(true));
+        assertThat(uuids.matches("/orders/123e4567-e89b-12d3-a456-42665544000g"), is(false));
+        assertThat(uuids.matches("/orders/123e4567e89b12d3a456426655440000"), is(false));
+        assertThat(uuids.matches("/orders/123e4567-e89b-12d3-a456-42665544000\uff10"), is(false)); // fullwidth digit
+        assertThat(uuids.matches("/orders/123e4567-e89b-12d3-a456-42665544000\u0660"), is(false)); // arabic-indic digit
+        assertThat(new ParameterizedPattern("/users/:id<int>").matches("/users/4\u0662"), is(false));
+
+        ParameterizedPattern regex = new ParameterizedPattern("/posts/:slug<[a-z-]+>/comments");
+        assertThat(regex.matches("/posts/hello-world/comments"), is(true));
+        assertThat(regex.matches("/posts/Hello/comments"), is(false));
+        assertThat(regex.matcher("/posts/hello-world/comments").parameters().get("slug"), equalTo("hello-world"));
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testIdentifierOccursMoreThanOnce() {
         new ParameterizedPattern("/hello/:name/id/:name");
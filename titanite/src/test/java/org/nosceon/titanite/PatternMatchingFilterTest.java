@@ -22,6 +22,8 @@ import java.util.function.Function;
 
 import static com.jayway.restassured.RestAssured.given;
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
 import static org.nosceon.titanite.Filters.filter;
 import static org.nosceon.titanite.Response.ok;
 
@@ -59,4 +61,21 @@ public class PatternMatchingFilterTest extends AbstractE2ETest {
         given().expect().statusCode(200).body(equalTo("handler")).when().get(uri("/static/style/style.css"));
     }
 
+    @Test
+    public void testMatching() {
+        PatternMatchingFilter f = new PatternMatchingFilter(filterA).include("/api/**", "/docs/*", "/a/*/c/**/*.json").exclude("/api/internal/**");
+
+        assertThat(f.matches("/api"), is(true));
+        assertThat(f.matches("/api/users/1"), is(true));
+        assertThat(f.matches("/apix/users"), is(false));
+        assertThat(f.matches("/api/internal/health"), is(false));
+        assertThat(f.matches("/docs/"), is(true));
+        assertThat(f.matches("/docs/index"), is(true));
+        assertThat(f.matches("/docs/index/"), is(false));
+        assertThat(f.matches("/a/b/c/x.json"), is(true));
+        assertThat(f.matches("/a/b/c/d/e/x.json"), is(true));
+        assertThat(f.matches("/a/b/c/d/e/x.xml"), is(false));
+        assertThat(f.matches("api/users"), is(false));
+    }
+
 }
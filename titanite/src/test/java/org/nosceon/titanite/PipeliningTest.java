@@ -0,0 +1,147 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nosceon.titanite;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.assertThat;
+import static org.nosceon.titanite.ImmutableSettings.newSettings;
+import static org.nosceon.titanite.Method.GET;
+import static org.nosceon.titanite.Method.POST;
+import static org.nosceon.titanite.Response.ok;
+
+/**
+ * @author Johan Siebens
+ */
+public class PipeliningTest extends AbstractE2ETest {
+
+    @Override
+    protected HttpServer newServer(int port) {
+        return new HttpServer(newSettings().setIoWorkerCount(2).setMaxPipelinedRequests(2).addHttpConnector(port).build());
+    }
+
+    @Override
+    protected Shutdownable configureAndStartHttpServer(HttpServer server) throws Exception {
+        return
+            server
+                .register(GET, "/slow", (r) -> CompletableFuture.supplyAsync(() -> {
+                    Utils.runUnchecked(() -> Thread.sleep(200));
+                    return ok().text("slow");
+                }))
+                .register(GET, "/fast", (r) -> ok().text("fast").toFuture())
+                .register(POST, "/echo", (r) -> ok().text(r.body().asText()).toFuture())
+                .registerRaw(GET, "/raw", (e) -> e.respond(200, "text/plain", "raw"))
+                .start();
+    }
+
+    @Test
+    public void testResponsesAreWrittenInRequestOrder() throws Exception {
+        try (Socket socket = new Socket("localhost", port())) {
+            OutputStream out = socket.getOutputStream();
+            out.write((
+                "GET /slow HTTP/1.1\r\nHost: localhost\r\n\r\n" +
+                    "GET /fast HTTP/1.1\r\nHost: localhost\r\n\r\n" +
+                    "GET /slow HTTP/1.1\r\nHost: localhost\r\n\r\n" +
+                    "GET /fast HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n"
+            ).getBytes("US-ASCII"));
+            out.flush();
+
+            String responses = readFully(socket.getInputStream());
+
+            assertThat(responses.replaceAll("(?s)HTTP/1.1 200 OK.*?\r\n\r\n", "|"), is("|slow|fast|slow|fast"));
+        }
+    }
+
+    @Test
+    public void testRawResponsesWaitForEarlierResponses() throws Exception {
+        try (Socket socket = new Socket("localhost", port())) {
+            OutputStream out = socket.getOutputStream();
+            out.write((
+                "GET /slow HTTP/1.1\r\nHost: localhost\r\n\r\n" +
+                    "GET /raw HTTP/1.1\r\nHost: localhost\r\n\r\n" +
+                    "GET /fast HTTP/1.1\r\nHost: localhost\r\n\r\n" +
+                    "GET /raw HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n"
+            ).getBytes("US-ASCII"));
+            out.flush();
+
+            String responses = readFully(socket.getInputStream());
+
+            assertThat(responses.replaceAll("(?s)HTTP/1.1 200 OK.*?\r\n\r\n", "|"), is("|slow|raw|fast|raw"));
+        }
+    }
+
+    @Test
+    public void testBadRequestIsWrittenAfterEarlierResponses() throws Exception {
+        try (Socket socket = new Socket("localhost", port())) {
+            OutputStream out = socket.getOutputStream();
+            out.write((
+                "GET /slow HTTP/1.1\r\nHost: localhost\r\n\r\n" +
+                    "GET /fast HTTP/1.1\r\nHost: localhost\r\n\r\n" +
+                    "GET /fast HTTP/1.1\r\nHost: localhost\r\nX-Large: " + new String(new char[10000]).replace('\0', 'a') + "\r\n\r\n"
+            ).getBytes("US-ASCII"));
+            out.flush();
+
+            String responses = readFully(socket.getInputStream());
+
+            assertThat(responses.replaceAll("(?s)HTTP/1.1 200 OK.*?\r\n\r\n", "|"), is("|slow|fastHTTP/1.1 400 Bad Request\r\nContent-Length: 0\r\nConnection: close\r\n\r\n"));
+        }
+    }
+
+    @Test
+    public void testContinueWaitsForEarlierResponses() throws Exception {
+        try (Socket socket = new Socket("localhost", port())) {
+            OutputStream out = socket.getOutputStream();
+            out.write((
+                "GET /slow HTTP/1.1\r\nHost: localhost\r\n\r\n" +
+                    "POST /echo HTTP/1.1\r\nHost: localhost\r\nExpect: 100-continue\r\nContent-Length: 5\r\nConnection: close\r\n\r\n"
+            ).getBytes("US-ASCII"));
+            out.flush();
+
+            InputStream in = socket.getInputStream();
+            StringBuilder received = new StringBuilder();
+            byte[] buffer = new byte[1024];
+            while (received.indexOf("100 Continue\r\n\r\n") < 0) {
+                int n = in.read(buffer);
+                received.append(new String(buffer, 0, n, "US-ASCII"));
+            }
+            assertTrue(received.indexOf("slow") >= 0 && received.indexOf("slow") < received.indexOf("100 Continue"));
+
+            out.write("hello".getBytes("US-ASCII"));
+            out.flush();
+
+            assertTrue(readFully(in).endsWith("hello"));
+        }
+    }
+
+    private static String readFully(InputStream in) throws Exception {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            result.write(buffer, 0, n);
+        }
+        return result.toString("US-ASCII");
+    }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nosceon.titanite;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+
+import static com.jayway.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+import static org.nosceon.titanite.Method.GET;
+import static org.nosceon.titanite.Method.POST;
+import static org.nosceon.titanite.Response.forbidden;
+import static org.nosceon.titanite.Response.ok;
+
+/**
+ * @author Johan Siebens
+ */
+public class RawRoutesTest extends AbstractE2ETest {
+
+    @Override
+    protected Shutdownable configureAndStartHttpServer(HttpServer server) throws Exception {
+        return
+            server
+                .setFilter((req, f) -> forbidden().toFuture())
+                .register(GET, "/filtered", req -> ok().toFuture())
+                .registerRaw(GET, "/health", e -> e.respond(200, "text/plain", "UP"))
+                .registerRaw(GET, "/pixel/:id", e -> e.respond(200, "text/plain", e.pathParam("id") + " " + e.request().getUri()))
+                .registerRaw(GET, "/async", e -> CompletableFuture.runAsync(() -> e.respond(202)))
+                .registerRaw(POST, "/collect", e -> e.respond(204))
+                .registerRaw(GET, "/fail", e -> {
+                    throw new IllegalStateException("expected");
+                })
+                .start();
+    }
+
+    @Test
+    public void test() {
+        given().expect().statusCode(403).when().get(uri("/filtered"));
+
+        given().expect().statusCode(200).contentType("text/plain").body(equalTo("UP")).when().get(uri("/health"));
+        given().expect().statusCode(200).body(equalTo("a1 /pixel/a1?t=1")).when().get(uri("/pixel/a1?t=1"));
+        given().expect().statusCode(200).header("Content-Length", "2").body(equalTo("")).when().head(uri("/health"));
+        given().expect().statusCode(202).when().get(uri("/async"));
+        given().body("ignored").expect().statusCode(204).when().post(uri("/collect"));
+        given().expect().statusCode(500).when().get(uri("/fail"));
+        given().expect().statusCode(405).when().post(uri("/health"));
+    }
+
+    @Test(timeout = 5000)
+    public void testResponsesWithoutBodyOnAKeptAliveConnection() throws Exception {
+        try (Socket socket = new Socket("localhost", port())) {
+            OutputStream out = socket.getOutputStream();
+            out.write((
+                "GET /async HTTP/1.1\r\nHost: localhost\r\n\r\n" +
+                    "GET /fail HTTP/1.1\r\nHost: localhost\r\n\r\n" +
+                    "GET /health HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n"
+            ).getBytes("US-ASCII"));
+            out.flush();
+
+            String responses = readFully(socket.getInputStream());
+
+            assertThat(responses, startsWith(
+                "HTTP/1.1 202 Accepted\r\nContent-Length: 0\r\n\r\n" +
+                    "HTTP/1.1 500 Internal Server Error\r\nContent-Length: 0\r\n\r\n" +
+                    "HTTP/1.1 200 OK\r\n"
+            ));
+            assertThat(responses, endsWith("\r\n\r\nUP"));
+        }
+    }
+
+    private static String readFully(InputStream in) throws Exception {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            result.write(buffer, 0, n);
+        }
+        return result.toString("US-ASCII");
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nosceon.titanite;
+
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import org.junit.Test;
+
+import static com.jayway.restassured.RestAssured.given;
+import static java.util.Collections.emptyMap;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.nosceon.titanite.ImmutableSettings.newSettings;
+import static org.nosceon.titanite.Method.GET;
+import static org.nosceon.titanite.Response.ok;
+
+/**
+ * @author Johan Siebens
+ */
+public class RecycleRequestsTest extends AbstractE2ETest {
+
+    @Override
+    protected HttpServer newServer(int port) {
+        return new HttpServer(newSettings().setIoWorkerCount(1).setRecycleRequests(true).addHttpConnector(port).build());
+    }
+
+    @Override
+    protected Shutdownable configureAndStartHttpServer(HttpServer server) throws Exception {
+        return
+            server
+                .setFilter((req, handler) -> {
+                    if (req.queryParams().getString("mark") != null) {
+                        req.withAttribute("mark", req.queryParams().getString("mark"));
+                    }
+                    return handler.apply(req);
+                })
+                .register(GET, "/a/:id", (r) -> ok().text(r.pathParams().getString("id") + " " + r.queryParams().getString("q") + " " + r.cookies().getString("c") + " " + r.attributes().get("mark") + " " + r.acceptableTypes()).toFuture())
+                .start();
+    }
+
+    @Test
+    public void testRequestsDoNotSeeEarlierValues() {
+        for (int i = 0; i < 20; i++) {
+            given().cookie("c", "v" + i).header("Accept", "text/plain").expect().statusCode(200).body(equalTo(i + " q" + i + " v" + i + " m" + i + " [text/plain]"))
+                .when().get(uri("/a/" + i + "?q=q" + i + "&mark=m" + i));
+            given().expect().statusCode(200).body(equalTo("x null null null [*/*]")).when().get(uri("/a/x"));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testReleasedRequestCannotBeUsed() {
+        DefaultHttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/a?q=1");
+        Request req = Request.pooled(false, GET, "/a", request, emptyMap(), new QueryStringDecoder(request.getUri()), null);
+        req.release();
+        req.queryParams();
+    }
+
+    @Test
+    public void testReleasedRequestCannotBeUsedOnceReused() {
+        DefaultHttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/a?q=1");
+        for (int i = 0; i < 10; i++) {
+            Request req = Request.pooled(false, GET, "/a", request, emptyMap(), new QueryStringDecoder(request.getUri()), null);
+            req.release();
+            Request next = Request.pooled(false, GET, "/b", request, emptyMap(), new QueryStringDecoder(request.getUri()), null);
+            try {
+                req.path();
+                fail("released request should not be usable");
+            }
+            catch (IllegalStateException e) {
+                // expected
+            }
+            assertThat(next.path(), equalTo("/b"));
+            next.release();
+        }
+    }
+
+}
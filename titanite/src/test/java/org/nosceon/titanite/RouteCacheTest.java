@@ -0,0 +1,66 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nosceon.titanite;
+
+import io.netty.handler.codec.http.HttpMethod;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.nosceon.titanite.Response.ok;
+
+/**
+ * @author Johan Siebens
+ */
+public class RouteCacheTest {
+
+    private final Router router = new Router(Arrays.asList(
+        new Route(Method.GET, "/users/:id", null, req -> ok().toFuture()),
+        new Route(Method.POST, "/users/:id", null, req -> ok().toFuture())
+    ), 4);
+
+    @Test
+    public void testHitsAndMisses() {
+        RoutingResult first = router.find(HttpMethod.GET, "/users/1");
+        RoutingResult second = router.find(HttpMethod.GET, "/users/1");
+        RoutingResult post = router.find(HttpMethod.POST, "/users/1");
+
+        assertThat(second, sameInstance(first));
+        assertThat(post, not(sameInstance(first)));
+        assertThat(second.pathParams().get("id"), equalTo("1"));
+        assertThat(router.cache().hits(), equalTo(1L));
+        assertThat(router.cache().misses(), equalTo(2L));
+    }
+
+    @Test
+    public void testBoundedWithHotPathsRetained() {
+        RoutingResult hot = router.find(HttpMethod.GET, "/users/hot");
+
+        for (int i = 0; i < 1000; i++) {
+            router.find(HttpMethod.GET, "/users/hot");
+            router.find(HttpMethod.GET, "/users/" + i);
+        }
+
+        assertThat(router.cache().size(), equalTo(4));
+        assertThat(router.find(HttpMethod.GET, "/users/hot"), sameInstance(hot));
+        assertThat(router.cache().misses(), equalTo(1001L));
+    }
+
+}
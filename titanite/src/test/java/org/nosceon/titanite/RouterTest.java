@@ -0,0 +1,151 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nosceon.titanite;
+
+import io.netty.handler.codec.http.HttpMethod;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.nosceon.titanite.Response.ok;
+
+/**
+ * @author Johan Siebens
+ */
+public class RouterTest {
+
+    private final Function<Request, CompletionStage<Response>> a = req -> ok().toFuture();
+
+    private final Function<Request, CompletionStage<Response>> b = req -> ok().toFuture();
+
+    private final Function<Request, CompletionStage<Response>> c = req -> ok().toFuture();
+
+    @Test
+    public void testFirstRegisteredRouteWins() {
+        Router router = new Router(Arrays.asList(
+            new Route(Method.GET, "/users/:id", null, a),
+            new Route(Method.GET, "/users/me", null, b),
+            new Route(Method.GET, "/*path", null, c)
+        ));
+
+        RoutingResult result = router.find(HttpMethod.GET, "/users/me");
+        assertThat(result.handler(), sameInstance(a));
+        assertThat(result.pathParams().get("id"), equalTo("me"));
+
+        assertThat(router.find(HttpMethod.GET, "/users").handler(), sameInstance(c));
+        assertThat(router.find(HttpMethod.GET, "/users/me/friends").pathParams().get("path"), equalTo("users/me/friends"));
+    }
+
+    @Test
+    public void testParameterNamesPerRoute() {
+        Router router = new Router(Arrays.asList(
+            new Route(Method.GET, "/users/:id", null, a),
+            new Route(Method.PUT, "/users/:name", null, b)
+        ));
+
+        assertThat(router.find(HttpMethod.GET, "/users/1").pathParams().get("id"), equalTo("1"));
+        assertThat(router.find(HttpMethod.PUT, "/users/john").pathParams().get("name"), equalTo("john"));
+    }
+
+    @Test
+    public void testConstraintsSkipRoutes() {
+        Router router = new Router(Arrays.asList(
+            new Route(Method.GET, "/users/:id<int>", null, a),
+            new Route(Method.GET, "/users/:name", null, b)
+        ));
+
+        RoutingResult result = router.find(HttpMethod.GET, "/users/42");
+        assertThat(result.handler(), sameInstance(a));
+        assertThat(new PathParams(result.pathParams()).getInt("id"), equalTo(42));
+        assertThat(new PathParams(result.pathParams()).getLong("id", 0), equalTo(42L));
+
+        assertThat(router.find(HttpMethod.GET, "/users/john").handler(), sameInstance(b));
+        assertThat(router.find(HttpMethod.GET, "/users/john").pathParams().get("name"), equalTo("john"));
+    }
+
+    @Test
+    public void testSplats() {
+        Router router = new Router(Arrays.asList(
+            new Route(Method.GET, "/files/*path", null, a),
+            new Route(Method.GET, "/docs/+path", null, b)
+        ));
+
+        assertThat(router.find(HttpMethod.GET, "/files").pathParams().get("path"), equalTo(""));
+        assertThat(router.find(HttpMethod.GET, "/files/").pathParams().get("path"), equalTo(""));
+        assertThat(router.find(HttpMethod.GET, "/files/a//b").pathParams().get("path"), equalTo("a//b"));
+        assertThat(router.find(HttpMethod.GET, "/docs/a/b").pathParams().get("path"), equalTo("a/b"));
+        assertThat(router.find(HttpMethod.GET, "/docs/").handler(), sameInstance(router.find(HttpMethod.GET, "/unknown").handler()));
+    }
+
+    @Test
+    public void testNotFoundAndMethodNotAllowed() {
+        Router router = new Router(Arrays.asList(
+            new Route(Method.GET, "/", null, a),
+            new Route(Method.GET, "/a/:id", null, b)
+        ));
+
+        assertThat(router.find(HttpMethod.GET, "/").handler(), sameInstance(a));
+        assertThat(status(router.find(HttpMethod.GET, "/a")), equalTo(404));
+        assertThat(status(router.find(HttpMethod.GET, "/a/1/")), equalTo(404));
+        assertThat(status(router.find(HttpMethod.GET, "/a/")), equalTo(404));
+        assertThat(status(router.find(HttpMethod.POST, "/a/1")), equalTo(405));
+    }
+
+    @Test
+    public void testHeadFallsBackToGet() {
+        Router router = new Router(Arrays.asList(
+            new Route(Method.GET, "/a", null, a),
+            new Route(Method.POST, "/b", null, b)
+        ));
+
+        assertThat(router.find(HttpMethod.HEAD, "/a").handler(), sameInstance(a));
+        assertThat(status(router.find(HttpMethod.HEAD, "/b")), equalTo(405));
+    }
+
+    @Test
+    public void testManyMatchingRoutes() {
+        Router router = new Router(Arrays.asList(
+            new Route(Method.GET, "/a/b/:z", null, a),
+            new Route(Method.GET, "/a/:y/:z", null, b),
+            new Route(Method.GET, "/:x/b/:z", null, b),
+            new Route(Method.GET, "/:x/:y/:z", null, b),
+            new Route(Method.GET, "/a/*rest", null, b),
+            new Route(Method.POST, "/:x/:y/:id<int>", null, c)
+        ));
+
+        for (int i = 0; i < 2; i++) {
+            RoutingResult get = router.find(HttpMethod.GET, "/a/b/42");
+            assertThat(get.handler(), sameInstance(a));
+            assertThat(get.pathParams().get("z"), equalTo("42"));
+
+            RoutingResult post = router.find(HttpMethod.POST, "/a/b/42");
+            assertThat(post.handler(), sameInstance(c));
+            assertThat(post.pathParams().get("x"), equalTo("a"));
+            assertThat(post.pathParams().get("y"), equalTo("b"));
+            assertThat(new PathParams(post.pathParams()).getInt("id"), equalTo(42));
+        }
+    }
+
+    private static int status(RoutingResult result) {
+        return result.handler().apply(null).toCompletableFuture().join().status();
+    }
+
+}
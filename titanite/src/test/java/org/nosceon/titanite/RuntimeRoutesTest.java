@@ -0,0 +1,100 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nosceon.titanite;
+
+import org.junit.Test;
+
+import static com.jayway.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.nosceon.titanite.Method.GET;
+import static org.nosceon.titanite.Response.ok;
+
+/**
+ * @author Johan Siebens
+ */
+public class RuntimeRoutesTest extends AbstractE2ETest {
+
+    public static class Plugin extends Controller {
+
+        {
+            get("/plugin", (r) -> ok().text("v1").toFuture());
+            get("/plugin/status", (r) -> ok().text("up").toFuture());
+        }
+
+    }
+
+    public static class PluginV2 extends Controller {
+
+        {
+            get("/plugin", (r) -> ok().text("v2").toFuture());
+        }
+
+    }
+
+    private HttpServer server;
+
+    private final Plugin plugin = new Plugin();
+
+    @Override
+    protected Shutdownable configureAndStartHttpServer(HttpServer server) throws Exception {
+        this.server = server;
+        return
+            server
+                .register(GET, "/a", (r) -> ok().text("a").toFuture())
+                .register(plugin)
+                .register(GET, "/*path", (r) -> ok().text("fallback").toFuture())
+                .start();
+    }
+
+    @Test
+    public void testAddAndRemoveRoutes() {
+        server.register(GET, "/b", (r) -> ok().text("b").toFuture());
+
+        // registered after the catch-all route, which keeps its precedence
+        given().expect().statusCode(200).body(equalTo("fallback")).when().get(uri("/b"));
+
+        server.unregister(GET, "/*path");
+
+        given().expect().statusCode(200).body(equalTo("b")).when().get(uri("/b"));
+        given().expect().statusCode(404).when().get(uri("/c"));
+
+        server.unregister(GET, "/a");
+
+        given().expect().statusCode(404).when().get(uri("/a"));
+    }
+
+    @Test
+    public void testReplaceHandler() {
+        server.replace(GET, "/a", (r) -> ok().text("a2").toFuture());
+
+        given().expect().statusCode(200).body(equalTo("a2")).when().get(uri("/a"));
+    }
+
+    @Test
+    public void testControllers() {
+        given().expect().statusCode(200).body(equalTo("up")).when().get(uri("/plugin/status"));
+
+        server.replace(plugin, new PluginV2());
+
+        given().expect().statusCode(200).body(equalTo("v2")).when().get(uri("/plugin"));
+        given().expect().statusCode(200).body(equalTo("fallback")).when().get(uri("/plugin/status"));
+
+        server.register(new Plugin()).unregister(PluginV2.class);
+
+        given().expect().statusCode(200).body(equalTo("fallback")).when().get(uri("/plugin"));
+    }
+
+}
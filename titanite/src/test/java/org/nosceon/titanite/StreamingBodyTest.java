@@ -0,0 +1,171 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nosceon.titanite;
+
+import org.junit.Test;
+import org.nosceon.titanite.body.BodyStream;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.jayway.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.nosceon.titanite.Method.GET;
+import static org.nosceon.titanite.Method.POST;
+import static org.nosceon.titanite.Response.ok;
+import static org.nosceon.titanite.body.StreamingBodyParser.streamingBodyParser;
+
+/**
+ * @author Johan Siebens
+ */
+public class StreamingBodyTest extends AbstractE2ETest {
+
+    private static final long STUCK_BODY_SIZE = 128 * 1024 * 1024;
+
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    @Override
+    protected Shutdownable configureAndStartHttpServer(HttpServer server) throws Exception {
+        return
+            server
+                .register(POST, "/count", streamingBodyParser(), req -> {
+                    AtomicLong size = new AtomicLong();
+                    return req.body().as(BodyStream.class)
+                        .forEach(chunk -> size.addAndGet(chunk.readableBytes()))
+                        .thenApply(v -> ok().text(String.valueOf(size.get())));
+                })
+                .register(POST, "/slow", streamingBodyParser(), req -> {
+                    AtomicLong size = new AtomicLong();
+                    return req.body().as(BodyStream.class)
+                        .forEachAsync(chunk -> {
+                            int n = chunk.readableBytes();
+                            return CompletableFuture.runAsync(() -> {
+                                Utils.runUnchecked(() -> Thread.sleep(1));
+                                size.addAndGet(n);
+                            });
+                        })
+                        .thenApply(v -> ok().text(String.valueOf(size.get())));
+                })
+                .register(POST, "/early", streamingBodyParser(), req -> {
+                    started.countDown();
+                    StringBuilder text = new StringBuilder();
+                    return req.body().as(BodyStream.class)
+                        .forEach(chunk -> text.append(chunk.toString(StandardCharsets.UTF_8)))
+                        .thenApply(v -> ok().text(text.toString()));
+                })
+                .register(POST, "/stuck", streamingBodyParser(), req -> req.body().as(BodyStream.class).forEachAsync(chunk -> new CompletableFuture<>()).thenApply(v -> ok()))
+                .register(GET, "/wait", req -> CompletableFuture.supplyAsync(() -> {
+                    Utils.runUnchecked(() -> Thread.sleep(200));
+                    return ok().text("waited");
+                }))
+                .register(POST, "/limited", streamingBodyParser(5), req -> req.body().as(BodyStream.class).forEach(chunk -> chunk.skipBytes(chunk.readableBytes())).thenApply(v -> ok()))
+                .register(POST, "/text", streamingBodyParser(), req -> ok().text(req.body().asText()).toFuture())
+                .start();
+    }
+
+    @Test
+    public void testChunksAreHandedToTheHandler() {
+        byte[] body = new byte[4 * 1024 * 1024];
+        Arrays.fill(body, (byte) 'a');
+        given().body(body).expect().statusCode(200).body(equalTo(String.valueOf(body.length))).when().post(uri("/count"));
+    }
+
+    @Test
+    public void testNextChunkWaitsForTheConsumer() {
+        byte[] body = new byte[1024 * 1024];
+        given().body(body).expect().statusCode(200).body(equalTo(String.valueOf(body.length))).when().post(uri("/slow"));
+    }
+
+    @Test(timeout = 10000)
+    public void testReadingStopsWhenTheConsumerFallsBehind() throws Exception {
+        assertTrue(accepted("") < STUCK_BODY_SIZE / 2);
+    }
+
+    @Test(timeout = 10000)
+    public void testReadingStopsWhenTheConsumerFallsBehindAnEarlierResponse() throws Exception {
+        assertTrue(accepted("GET /wait HTTP/1.1\r\nHost: localhost\r\n\r\n") < STUCK_BODY_SIZE / 2);
+    }
+
+    // bytes of a body written to a consumer that never completes, before the connection pushes back
+    private long accepted(String before) throws Exception {
+        try (Socket socket = new Socket("localhost", port())) {
+            OutputStream out = socket.getOutputStream();
+            out.write((before + "POST /stuck HTTP/1.1\r\nHost: localhost\r\nContent-Length: " + STUCK_BODY_SIZE + "\r\n\r\n").getBytes("US-ASCII"));
+
+            AtomicLong written = new AtomicLong();
+            Thread writer = new Thread(() -> {
+                byte[] chunk = new byte[8192];
+                try {
+                    while (written.get() < STUCK_BODY_SIZE) {
+                        out.write(chunk);
+                        written.addAndGet(chunk.length);
+                    }
+                }
+                catch (Exception e) {
+                    // closed while blocked on a full connection
+                }
+            });
+            writer.setDaemon(true);
+            writer.start();
+
+            Thread.sleep(2000);
+            return written.get();
+        }
+    }
+
+    @Test
+    public void testHandlerStartsBeforeTheBodyIsReceived() throws Exception {
+        try (Socket socket = new Socket("localhost", port())) {
+            OutputStream out = socket.getOutputStream();
+            out.write("POST /early HTTP/1.1\r\nHost: localhost\r\nContent-Length: 10\r\nConnection: close\r\n\r\nhello".getBytes("US-ASCII"));
+            out.flush();
+
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            out.write("world".getBytes("US-ASCII"));
+            out.flush();
+
+            assertThat(readFully(socket.getInputStream()), containsString("\r\n\r\nhelloworld"));
+        }
+    }
+
+    @Test
+    public void testMaximumExceeded() {
+        given().body("Lorem ipsum dolor sit amet").expect().statusCode(413).when().post(uri("/limited"));
+    }
+
+    @Test
+    public void testBufferedAccessIsNotSupported() {
+        given().body("Lorem ipsum dolor sit amet").expect().statusCode(500).when().post(uri("/text"));
+    }
+
+    private static String readFully(InputStream in) {
+        Scanner s = new Scanner(in, "US-ASCII").useDelimiter("\\A");
+        return s.hasNext() ? s.next() : "";
+    }
+
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nosceon.titanite;
+
+import org.junit.Test;
+import org.nosceon.titanite.body.BodyStream;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.nosceon.titanite.ImmutableSettings.newHttpConnector;
+import static org.nosceon.titanite.ImmutableSettings.newSettings;
+import static org.nosceon.titanite.Method.GET;
+import static org.nosceon.titanite.Method.POST;
+import static org.nosceon.titanite.Response.ok;
+import static org.nosceon.titanite.body.StreamingBodyParser.streamingBodyParser;
+
+/**
+ * @author Johan Siebens
+ */
+public class TimeoutsTest extends AbstractE2ETest {
+
+    @Override
+    protected HttpServer newServer(int port) {
+        return new HttpServer(
+            newSettings()
+                .setIoWorkerCount(2)
+                .addConnector(
+                    newHttpConnector(port)
+                        .setIdleTimeout(300)
+                        .setHeaderReadTimeout(300)
+                        .setBodyReadTimeout(300)
+                        .setStreamIdleTimeout(0)
+                )
+                .build()
+        );
+    }
+
+    @Override
+    protected Shutdownable configureAndStartHttpServer(HttpServer server) throws Exception {
+        return
+            server
+                .register(GET, "/text", (r) -> ok().text("Hello World").toFuture())
+                .register(GET, "/stream", (r) -> ok().chunks(o -> o.write("started".getBytes())).toFuture())
+                .register(POST, "/reject", streamingBodyParser(), (r) -> ok().text("rejected").toFuture())
+                .register(POST, "/slow", streamingBodyParser(), (r) -> {
+                    AtomicBoolean first = new AtomicBoolean(true);
+                    AtomicLong size = new AtomicLong();
+                    return r.body().as(BodyStream.class)
+                        .forEachAsync(chunk -> {
+                            size.addAndGet(chunk.readableBytes());
+                            return CompletableFuture.runAsync(() -> {
+                                if (first.getAndSet(false)) {
+                                    Utils.runUnchecked(() -> Thread.sleep(800)); // longer than the body read timeout
+                                }
+                            });
+                        })
+                        .thenApply(v -> ok().text("received " + size.get()));
+                })
+                .start();
+    }
+
+    @Test(timeout = 5000)
+    public void testIdleConnectionIsClosed() throws Exception {
+        try (Socket socket = new Socket("localhost", port())) {
+            assertThat(socket.getInputStream().read(), is(-1));
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testIdleKeepAliveConnectionIsClosed() throws Exception {
+        try (Socket socket = new Socket("localhost", port())) {
+            socket.getOutputStream().write("GET /text HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes("US-ASCII"));
+            assertThat(drain(socket.getInputStream()), is(true));
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testSlowHeadersAreClosed() throws Exception {
+        try (Socket socket = new Socket("localhost", port())) {
+            OutputStream out = socket.getOutputStream();
+            out.write("GET /text HTTP/1.1\r\n".getBytes("US-ASCII"));
+            try {
+                for (int i = 0; i < 40; i++) {
+                    Thread.sleep(100);
+                    out.write(("X-Slow-" + i + ": slow\r\n").getBytes("US-ASCII"));
+                }
+            }
+            catch (Exception e) {
+                // connection closed while trickling headers
+            }
+            assertThat(drain(socket.getInputStream()), is(true));
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testStreamingResponseIsExempt() throws Exception {
+        try (Socket socket = new Socket("localhost", port())) {
+            socket.setSoTimeout(1000);
+            socket.getOutputStream().write("GET /stream HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes("US-ASCII"));
+            assertThat(drain(socket.getInputStream()), is(false));
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testSlowBodyConsumerIsExempt() throws Exception {
+        try (Socket socket = new Socket("localhost", port())) {
+            socket.setSoTimeout(3000);
+            OutputStream out = socket.getOutputStream();
+            out.write("POST /slow HTTP/1.1\r\nHost: localhost\r\nContent-Length: 65536\r\nConnection: close\r\n\r\n".getBytes("US-ASCII"));
+            out.write(new byte[65536]);
+            out.flush();
+
+            assertThat(readFully(socket.getInputStream()), containsString("received 65536"));
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testIdleConnectionIsClosedAfterAnEarlyResponse() throws Exception {
+        try (Socket socket = new Socket("localhost", port())) {
+            socket.setSoTimeout(2000);
+            OutputStream out = socket.getOutputStream();
+            out.write("POST /reject HTTP/1.1\r\nHost: localhost\r\nContent-Length: 10\r\n\r\nhello".getBytes("US-ASCII"));
+            out.flush();
+
+            InputStream in = socket.getInputStream();
+            byte[] buffer = new byte[1024];
+            String response = "";
+            while (!response.endsWith("rejected")) {
+                int n = in.read(buffer);
+                response += new String(buffer, 0, n, "US-ASCII");
+            }
+
+            out.write("world".getBytes("US-ASCII"));
+            out.flush();
+
+            assertThat(drain(in), is(true));
+        }
+    }
+
+    private static String readFully(InputStream in) throws Exception {
+        StringBuilder result = new StringBuilder();
+        byte[] buffer = new byte[1024];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            result.append(new String(buffer, 0, n, "US-ASCII"));
+        }
+        return result.toString();
+    }
+
+    // true when the connection got closed, false when it is still open after the socket timeout
+    private static boolean drain(InputStream in) throws Exception {
+        byte[] buffer = new byte[1024];
+        try {
+            while (in.read(buffer) != -1) {
+                // discard the response
+            }
+            return true;
+        }
+        catch (SocketTimeoutException e) {
+            return false;
+        }
+        catch (SocketException e) {
+            return true; // reset, data was written after the connection got closed
+        }
+    }
+
+}
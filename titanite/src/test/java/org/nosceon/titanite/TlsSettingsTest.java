@@ -0,0 +1,119 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.nosceon.titanite;
+
+import org.junit.Test;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.nosceon.titanite.ImmutableSettings.newHttpsConnector;
+import static org.nosceon.titanite.ImmutableSettings.newSettings;
+import static org.nosceon.titanite.Method.GET;
+import static org.nosceon.titanite.Response.ok;
+
+/**
+ * @author Johan Siebens
+ */
+public class TlsSettingsTest extends AbstractE2ETest {
+
+    @Override
+    protected HttpServer newServer(int port) {
+        return new HttpServer(
+            newSettings()
+                .setIoWorkerCount(2)
+                .addConnector(
+                    newHttpsConnector(port)
+                        .setProtocols("TLSv1.2")
+                        .setSessionCacheSize(1024)
+                        .setSessionTimeout(300)
+                )
+                .build()
+        );
+    }
+
+    @Override
+    protected Shutdownable configureAndStartHttpServer(HttpServer server) throws Exception {
+        return
+            server
+                .register(GET, "/text", (r) -> ok().text("Hello World").toFuture())
+                .start();
+    }
+
+    @Test
+    public void testProtocolAndSessionResumption() throws Exception {
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(null, new TrustManager[]{new TrustAll()}, new SecureRandom());
+
+        byte[] first = get(context);
+        byte[] second = get(context);
+
+        assertTrue(Arrays.equals(first, second)); // the second connection resumed the cached session
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testProtocolsRequireTheJdkProvider() {
+        newHttpsConnector(8443).setSslProvider(Settings.SslProvider.OPENSSL).setProtocols("TLSv1.2").build();
+    }
+
+    private byte[] get(SSLContext context) throws Exception {
+        try (SSLSocket socket = (SSLSocket) context.getSocketFactory().createSocket("localhost", port())) {
+            socket.setSoTimeout(5000); // kept alive, the client closes first and sends its close_notify
+            socket.startHandshake();
+
+            assertThat(socket.getSession().getProtocol(), equalTo("TLSv1.2"));
+
+            OutputStream out = socket.getOutputStream();
+            out.write("GET /text HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            assertThat(in.readLine(), equalTo("HTTP/1.1 200 OK"));
+
+            return socket.getSession().getId();
+        }
+    }
+
+    private static class TrustAll implements X509TrustManager {
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType) {
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType) {
+        }
+
+        @Override
+        public X509Certificate[] getAcceptedIssuers() {
+            return new X509Certificate[0];
+        }
+
+    }
+
+}